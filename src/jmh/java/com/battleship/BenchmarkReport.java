@@ -0,0 +1,60 @@
+package com.battleship;
+
+// This class BenchmarkReport runs every benchmark with the GC profiler and writes two files under target/jmh/:
+// <label>.json, JMH's full machine-readable results, and <label>.txt, one sorted line per benchmark and parameter set
+// with the score and the bytes allocated per operation. Compare releases with: diff target/jmh/1.0.txt target/jmh/1.1.txt
+// Run with: java -cp target/benchmarks.jar com.battleship.BenchmarkReport <label> [benchmark regex]
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class BenchmarkReport {
+    public static void main(String[] args) throws RunnerException, IOException {
+        String label = args.length > 0 ? args[0] : "current";
+        String include = args.length > 1 ? args[1] : "com\\.battleship\\..*";
+        Path dir = Path.of("target", "jmh");
+        Files.createDirectories(dir);
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(dir.resolve(label + ".json").toString())
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        List<String> lines = new ArrayList<>();
+        for (RunResult run : results) {
+            Result primary = run.getPrimaryResult();
+            Result alloc = run.getSecondaryResults().get("gc.alloc.rate.norm");
+            lines.add(String.format("%-60s %-28s %14.3f %-6s %10.1f B/op",
+                    run.getParams().getBenchmark().replace("com.battleship.", ""),
+                    params(run), primary.getScore(), primary.getScoreUnit(),
+                    alloc == null ? Double.NaN : alloc.getScore()));
+        }
+        lines.sort(null);
+        Files.write(dir.resolve(label + ".txt"), lines);
+        System.out.println("Wrote " + dir.resolve(label + ".txt") + " and " + dir.resolve(label + ".json"));
+    }
+
+    private static String params(RunResult run) {
+        Map<String, String> values = new TreeMap<>();
+        for (String key : run.getParams().getParamsKeys()) values.put(key, run.getParams().getParam(key));
+        return values.isEmpty() ? "-" : values.toString().replace(" ", "");
+    }
+}
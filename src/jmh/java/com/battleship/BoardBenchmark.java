@@ -0,0 +1,101 @@
+package com.battleship;
+
+// This class BoardBenchmark measures the Board and Ship hot paths of a turn: attack resolution, occupancy checks,
+// the all-sunk check, Ship.isSunk and printBoard rendering. Rendering goes to a discarding System.out so the
+// numbers include PrintStream's locking and formatting but not the terminal. attackAndRedraw is one turn as the ANSI
+// view sees it: an attack, then a frame holding only the changed cell. Boards are size x size with a fleet scaled
+// to the area (see PlacementBenchmark.scaledConfig), to show which operations depend on the board size.
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private Board board;
+    private Ship carrier;
+    private Coordinate[] cells;
+    private int next;
+    private PrintStream originalOut;
+    private BoardRenderer incremental;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        GameConfig config = PlacementBenchmark.scaledConfig(size);
+        board = new Board(config.rows(), config.cols());
+        List<Coordinate> coords = new ArrayList<>();
+        for (int i = 0; i < 5; i++) coords.add(new Coordinate(0, i));
+        carrier = new Ship(coords);
+        board.placeShip(carrier);
+        new FleetGenerator(config).placeFleet(board, new SplittableRandom(1));
+
+        cells = new Coordinate[size * size];
+        for (int i = 0; i < cells.length; i++) cells[i] = new Coordinate(i / size, i % size);
+
+        incremental = BoardRenderer.incremental(1);
+        incremental.render(board, false, new StringBuilder()); // Prime it with the full first frame
+
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    private Coordinate nextCell() {
+        Coordinate c = cells[next];
+        next = next + 1 == cells.length ? 0 : next + 1;
+        return c;
+    }
+
+    @Benchmark
+    public String attack() {
+        return board.attack(nextCell());
+    }
+
+    @Benchmark
+    public boolean isOccupied() {
+        return board.isOccupied(nextCell());
+    }
+
+    @Benchmark
+    public boolean allShipsSunk() {
+        return board.allShipsSunk();
+    }
+
+    @Benchmark
+    public boolean shipIsSunk() {
+        return carrier.isSunk();
+    }
+
+    @Benchmark
+    public void printBoardWithShips() {
+        board.printBoard(true);
+    }
+
+    @Benchmark
+    public void printBoardHitsOnly() {
+        board.printBoard(false);
+    }
+
+    @Benchmark
+    public void attackAndRedraw() {
+        board.attack(nextCell());
+        incremental.print(board, false, System.out);
+    }
+}
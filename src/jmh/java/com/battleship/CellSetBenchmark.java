@@ -0,0 +1,56 @@
+package com.battleship;
+
+// This class CellSetBenchmark measures the bitset operations behind Board at several grid areas: the inline two-long
+// form used up to 128 cells and the long[] form used above that.
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CellSetBenchmark {
+    @Param({"100", "10000", "1000000"})
+    public int cells;
+
+    private CellSet occupied;
+    private CellSet hits;
+    private int[] probes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(7);
+        occupied = new CellSet(cells);
+        hits = new CellSet(cells);
+        for (int i = 0; i < Math.max(17, cells / 6); i++) {
+            int cell = random.nextInt(cells);
+            occupied.add(cell);
+            if (random.nextBoolean()) hits.add(cell);
+        }
+        probes = new int[1024];
+        for (int i = 0; i < probes.length; i++) probes[i] = random.nextInt(cells);
+    }
+
+    @Benchmark
+    public boolean contains() {
+        int cell = probes[next];
+        next = (next + 1) & (probes.length - 1);
+        return occupied.contains(cell);
+    }
+
+    @Benchmark
+    public boolean containsAll() {
+        return hits.containsAll(occupied);
+    }
+
+    @Benchmark
+    public boolean intersects() {
+        return hits.intersects(occupied);
+    }
+}
@@ -0,0 +1,67 @@
+package com.battleship;
+
+// This class CoordinateBenchmark measures turning a single coordinate into its wire form and back: the "B4" text that
+// NetworkedGame has always sent, and the binary move frame. allocate and intern compare a fresh Coordinate with the
+// shared one from Coordinate.of; run with -prof gc to see the allocation each one costs.
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoordinateBenchmark {
+    private final Coordinate[] moves = new Coordinate[100];
+    private final String[] texts = new String[100];
+    private final ByteBuffer frame = ByteBuffer.allocate(16);
+    private int next;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = Coordinate.of(i / 10, i % 10);
+            texts[i] = TextWire.serializeCoordinate(moves[i]);
+        }
+    }
+
+    private int nextIndex() {
+        int i = next;
+        next = next + 1 == moves.length ? 0 : next + 1;
+        return i;
+    }
+
+    @Benchmark
+    public String textSerialize() {
+        return TextWire.serializeCoordinate(moves[nextIndex()]);
+    }
+
+    @Benchmark
+    public Coordinate textDeserialize() {
+        return TextWire.deserializeCoordinate(texts[nextIndex()]);
+    }
+
+    @Benchmark
+    public Coordinate allocate() {
+        int i = nextIndex();
+        return new Coordinate(i / 10, i % 10);
+    }
+
+    @Benchmark
+    public Coordinate intern() {
+        int i = nextIndex();
+        return Coordinate.of(i / 10, i % 10);
+    }
+
+    @Benchmark
+    public int binaryEncode() {
+        Coordinate c = moves[nextIndex()];
+        frame.clear();
+        BinaryWire.encodeMove(frame, c.row * GameConfig.STANDARD.cols() + c.col);
+        return frame.position();
+    }
+}
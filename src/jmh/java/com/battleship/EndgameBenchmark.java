@@ -0,0 +1,58 @@
+package com.battleship;
+
+// This class EndgameBenchmark measures what ProbabilityDensityStrategy pays for a shot in the endgame: picking it from
+// the density counts, solving the position exactly with the EndgameSolver, and looking the solved position up in the
+// shared cache, which is what every later game reaching the same position pays. The position is taken from a seeded
+// standard game at the first shot that hits a ship with only two ships left afloat.
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EndgameBenchmark {
+    private ProbabilityDensityStrategy density;
+    private ProbabilityDensityStrategy solver;
+
+    @Setup
+    public void setUp() {
+        GameConfig config = GameConfig.STANDARD;
+        for (long seed = 1; ; seed++) {
+            SplittableRandom random = new SplittableRandom(seed);
+            Board board = new Board(config.rows(), config.cols());
+            new FleetGenerator(config).placeFleet(board, random);
+            density = new ProbabilityDensityStrategy(false, false);
+            solver = new ProbabilityDensityStrategy(false, true);
+            density.reset(config.rows(), config.cols(), config.fleet(), random);
+            solver.reset(config.rows(), config.cols(), config.fleet(), random);
+            while (!board.allShipsSunk()) {
+                int cell = density.nextShot();
+                String result = board.attack(cell / config.cols(), cell % config.cols());
+                density.onResult(cell, result);
+                solver.onResult(cell, result);
+                if (result.equals("HIT") && board.getShipsAfloat() == 2 && solver.solveEndgame() >= 0) return;
+            }
+        }
+    }
+
+    @Benchmark
+    public int densityShot() {
+        return density.nextShot();
+    }
+
+    @Benchmark
+    public int solve() {
+        return solver.solveEndgame();
+    }
+
+    @Benchmark
+    public int cachedShot() {
+        return solver.nextShot();
+    }
+}
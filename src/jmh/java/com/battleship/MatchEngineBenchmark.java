@@ -0,0 +1,79 @@
+package com.battleship;
+
+// This class MatchEngineBenchmark measures what an authoritative GameServer adds to every move: MatchEngine checking
+// the shot and working out its result. Each invocation is one move of a game between two players firing at their
+// cells in a shuffled order; the cost of setting up the next game (reset and two fleets) is spread over its moves, as
+// it is on the server. The target is well under a microsecond per move.
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatchEngineBenchmark {
+    private static final int GAMES = 64;
+
+    @Param({"10x10:5,4,3,3,2", "20x20:5,4,4,3,3,3,2,2,2,2"})
+    public String config;
+
+    private MatchEngine engine;
+    private int cols;
+    private int[][] layouts;   // Both fleets of each prepared game
+    private int[][] orders;    // Each player's firing order
+    private int game;
+    private int move;
+
+    @Setup
+    public void setUp() {
+        GameConfig parsed = GameConfig.parse(config);
+        engine = new MatchEngine(parsed);
+        cols = parsed.cols();
+        SplittableRandom random = new SplittableRandom(11);
+        FleetGenerator generator = new FleetGenerator(parsed);
+        layouts = new int[GAMES * 2][parsed.fleet().length];
+        for (int[] layout : layouts) generator.generate(layout, random);
+        orders = new int[2][parsed.cells()];
+        for (int[] order : orders) {
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            for (int i = order.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int t = order[i];
+                order[i] = order[j];
+                order[j] = t;
+            }
+        }
+        nextGame();
+    }
+
+    private void nextGame() {
+        engine.reset();
+        engine.placeFleet(0, layouts[game * 2]);
+        engine.placeFleet(1, layouts[game * 2 + 1]);
+        game = (game + 1) % GAMES;
+        move = 0;
+    }
+
+    @Benchmark
+    public int fire() {
+        int player = engine.turn();
+        int cell = orders[player][move >> 1];
+        move++;
+        int result = engine.fire(player, cell / cols, cell % cols);
+        if (result == BinaryWire.WIN_CODE) nextGame();
+        return result;
+    }
+
+    // A repeated shot, turned down on the bitset check without changing the game
+    @Benchmark
+    public int rejectDuplicate() {
+        int player = engine.turn();
+        int cell = orders[player][0];
+        return move < 2 ? fire() : engine.fire(player, cell / cols, cell % cols);
+    }
+}
@@ -0,0 +1,63 @@
+package com.battleship;
+
+// This class MemoryPipe connects an OutputStream to an InputStream through one growable byte array, for single-threaded
+// benchmarks that write a message and immediately read it back. Once everything written has been read the array is reused.
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+class MemoryPipe {
+    private byte[] buffer = new byte[4096];
+    private int readPos;
+    private int writePos;
+
+    OutputStream output() {
+        return new OutputStream() {
+            @Override
+            public void write(int b) {
+                ensure(1);
+                buffer[writePos++] = (byte) b;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                ensure(len);
+                System.arraycopy(b, off, buffer, writePos, len);
+                writePos += len;
+            }
+        };
+    }
+
+    InputStream input() {
+        return new InputStream() {
+            @Override
+            public int read() {
+                if (readPos == writePos) return -1;
+                return buffer[readPos++] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (readPos == writePos) return -1;
+                int n = Math.min(len, writePos - readPos);
+                System.arraycopy(buffer, readPos, b, off, n);
+                readPos += n;
+                return n;
+            }
+
+            @Override
+            public int available() {
+                return writePos - readPos;
+            }
+        };
+    }
+
+    private void ensure(int len) {
+        if (readPos == writePos) {
+            readPos = 0;
+            writePos = 0;
+        }
+        if (writePos + len > buffer.length) buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, writePos + len));
+    }
+}
@@ -0,0 +1,53 @@
+package com.battleship;
+
+// This class MetricsBenchmark measures what instrumentation costs the code it times: recording one value into a
+// LatencyHistogram and bumping a counter, from one thread and from four at once, and reading a percentile back.
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final LongAdder counter = new LongAdder();
+    private long value = 12_345;
+
+    @Setup
+    public void setUp() {
+        for (long v = 1; v < 1_000_000; v += 7) histogram.record(v);
+    }
+
+    @Benchmark
+    public void record() {
+        histogram.record(value += 977);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordContended() {
+        histogram.record(value += 977);
+    }
+
+    @Benchmark
+    public void count() {
+        counter.increment();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void countContended() {
+        counter.increment();
+    }
+
+    @Benchmark
+    public long p99() {
+        return histogram.percentile(0.99);
+    }
+}
@@ -0,0 +1,55 @@
+package com.battleship;
+
+// This class PlacementBenchmark measures how fast a full fleet is placed at random on an empty board, both as Ship
+// objects on a Board and as a bare primitive layout from FleetGenerator. Boards are size x size with the standard fleet
+// repeated once per 100 cells, so every size is covered by ships at the same density as the classic game.
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlacementBenchmark {
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private GameConfig config;
+    private FleetGenerator generator;
+    private final SplittableRandom random = new SplittableRandom(1);
+    private int[] layout;
+
+    @Setup
+    public void setUp() {
+        config = scaledConfig(size);
+        generator = new FleetGenerator(config);
+        layout = new int[generator.fleetSize()];
+    }
+
+    // A size x size board carrying the standard fleet once for every 100 cells
+    static GameConfig scaledConfig(int size) {
+        int[] standard = GameConfig.STANDARD.fleet();
+        int copies = Math.max(1, size * size / 100);
+        int[] fleet = new int[standard.length * copies];
+        for (int i = 0; i < fleet.length; i++) fleet[i] = standard[i % standard.length];
+        return new GameConfig(size, size, fleet);
+    }
+
+    @Benchmark
+    public Board placeFleet() {
+        Board board = new Board(config.rows(), config.cols());
+        generator.placeFleet(board, random);
+        return board;
+    }
+
+    @Benchmark
+    public int[] generateLayout() {
+        generator.generate(layout, random);
+        return layout;
+    }
+}
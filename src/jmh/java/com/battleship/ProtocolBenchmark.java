@@ -0,0 +1,94 @@
+package com.battleship;
+
+// This class ProtocolBenchmark compares the text and binary wire protocols over a loopback socket, where WireBenchmark
+// leaves the socket out. A responder thread answers every move with a result; we time the round trip of a single move
+// sent with its own flush, and of a batch of moves sent with one flush and then answered (reported per move).
+// Run with: java -jar target/benchmarks.jar ProtocolBenchmark
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtocolBenchmark {
+    private static final int BATCH = 32;
+
+    @Param({Wire.TEXT, Wire.BINARY})
+    public String protocol;
+
+    private ServerSocket server;
+    private Socket socket;
+    private Wire wire;
+    private Coordinate[] moves;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        server = new ServerSocket(0, 1, loopback);
+        GameServer.daemon("responder").newThread(this::respond).start();
+        socket = new Socket(loopback, server.getLocalPort());
+        socket.setTcpNoDelay(true);
+        wire = Wire.create(protocol, socket, GameConfig.STANDARD.cols());
+        moves = new Coordinate[100];
+        for (int i = 0; i < moves.length; i++) moves[i] = Coordinate.of(i / 10, i % 10);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        wire.sendDisconnect();
+        wire.flush();
+        wire.close();
+        server.close();
+    }
+
+    private Coordinate nextMove() {
+        Coordinate move = moves[next];
+        next = next + 1 == moves.length ? 0 : next + 1;
+        return move;
+    }
+
+    // One move, one flush, wait for the result
+    @Benchmark
+    public String roundTrip() throws IOException {
+        wire.sendMove(nextMove());
+        wire.flush();
+        if (wire.read() != Wire.RESULT) throw new IOException("Responder went away");
+        return wire.lastResult();
+    }
+
+    // BATCH moves per flush, then collect their results
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public String batchedRoundTrip() throws IOException {
+        for (int i = 0; i < BATCH; i++) wire.sendMove(nextMove());
+        wire.flush();
+        for (int i = 0; i < BATCH; i++) {
+            if (wire.read() != Wire.RESULT) throw new IOException("Responder went away");
+        }
+        return wire.lastResult();
+    }
+
+    // Answer every move with a result until the benchmark disconnects
+    private void respond() {
+        try (Socket peer = server.accept()) {
+            peer.setTcpNoDelay(true);
+            Wire answers = Wire.create(protocol, peer, GameConfig.STANDARD.cols());
+            while (answers.read() == Wire.MOVE) {
+                answers.sendResult(answers.lastMove().row % 2 == 0 ? "MISS" : "HIT");
+                answers.flush();
+            }
+        } catch (IOException e) {
+            // The benchmark is over and its socket is closed
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.battleship;
+
+// This class SalvoBenchmark measures what salvo games buy on a slow link. Two NetworkedGames play whole games against
+// each other through a loopback relay that holds every chunk of bytes back for a fixed one-way latency: first the
+// classic game, where a player waits for its shot's result before the opponent's turn, then salvo games of several
+// shots, whose answers go out as soon as a salvo's last shot is resolved and whose next salvo follows without waiting
+// for them. Since these are the real games, every flush happens exactly where it does in play. Each player's attacks
+// come from a script of every cell in a seeded random order, and its screen output is kept only to check that the
+// game was played to the end. Heartbeats are turned off, so only moves and answers cross the link.
+// Run with: java -cp target/benchmarks.jar com.battleship.SalvoBenchmark <one-way ms> <games>
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+public class SalvoBenchmark {
+    private static final int[] SALVOS = {1, 3, 5}; // 1 is the classic game
+
+    public static void main(String[] args) throws Exception {
+        int latencyMillis = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        boolean binary = Boolean.getBoolean("battleship.binary");
+        System.setProperty("battleship.heartbeatMillis", "0");
+        System.out.printf("%d games per salvo size, %d ms each way, %s wire%n", games, latencyMillis,
+                binary ? Wire.BINARY : Wire.TEXT);
+        for (int salvo : SALVOS) {
+            System.setProperty("battleship.salvo", Integer.toString(salvo)); // Proposed by the host, followed by the client
+            long turns = 0;
+            long shots = 0;
+            long start = System.nanoTime();
+            for (int g = 0; g < games; g++) {
+                for (int fired : playGame(latencyMillis, binary, g)) {
+                    turns += (fired + salvo - 1) / salvo;
+                    shots += fired;
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%-9s %.1f turns/s, %,.0f shots/s, %.2f games/s (%.1f turns per game, %.2f s)%n",
+                    salvo == 1 ? "classic:" : "salvo x" + salvo + ":", turns / seconds, shots / seconds,
+                    games / seconds, (double) turns / games, seconds);
+        }
+    }
+
+    // One game between a host and a client whose connection runs through a DelayedLink; the shots each one fired
+    private static int[] playGame(int latencyMillis, boolean binary, long seed) throws Exception {
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        try (ServerSocket hostListener = new ServerSocket(0, 1, loopback);
+             ServerSocket linkListener = new ServerSocket(0, 1, loopback);
+             Socket client = new Socket(loopback, linkListener.getLocalPort());
+             Socket linkIn = linkListener.accept();
+             Socket linkOut = new Socket(loopback, hostListener.getLocalPort());
+             Socket host = hostListener.accept()) {
+            for (Socket s : new Socket[] {client, linkIn, linkOut, host}) s.setTcpNoDelay(true);
+            DelayedLink.start(linkIn, linkOut, latencyMillis);
+            DelayedLink.start(linkOut, linkIn, latencyMillis);
+
+            Player[] players = {
+                    new Player(host, NetworkedGame.Role.HOST, binary, seed * 2),
+                    new Player(client, NetworkedGame.Role.CLIENT, binary, seed * 2 + 1)};
+            Thread hostThread = new Thread(players[0], "salvo-host");
+            hostThread.start();
+            players[1].run();
+            hostThread.join();
+            for (Player player : players) {
+                if (player.failure != null) throw player.failure;
+            }
+            String hostScreen = players[0].screen.toString(StandardCharsets.UTF_8);
+            String clientScreen = players[1].screen.toString(StandardCharsets.UTF_8);
+            boolean hostWon = hostScreen.contains("You win!") && clientScreen.contains("You lost!");
+            boolean clientWon = clientScreen.contains("You win!") && hostScreen.contains("You lost!");
+            if (!hostWon && !clientWon) throw new IllegalStateException("Game " + seed + " wasn't played to the end");
+            return new int[] {players[0].script.lines, players[1].script.lines};
+        }
+    }
+
+    // One side of a game: a NetworkedGame on a scripted console whose output goes to a buffer
+    private static final class Player implements Runnable {
+        private final Socket socket;
+        private final NetworkedGame.Role role;
+        private final boolean binary;
+        private final long seed;
+        final ScriptFeed script;
+        final ByteArrayOutputStream screen = new ByteArrayOutputStream();
+        IOException failure;
+
+        Player(Socket socket, NetworkedGame.Role role, boolean binary, long seed) {
+            this.socket = socket;
+            this.role = role;
+            this.binary = binary;
+            this.seed = seed;
+            this.script = new ScriptFeed(GameConfig.STANDARD, new SplittableRandom(seed));
+        }
+
+        @Override
+        public void run() {
+            try {
+                NetworkedGame game = new NetworkedGame(role, socket, binary, GameConfig.STANDARD);
+                game.setSeed(seed);
+                game.setConsole(new ConsoleIO(script, screen, true));
+                game.start();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+    }
+
+    // A script of every cell in random order, one attack per line. A read hands out one line, and a scripted game only
+    // reads a line when it wants an attack, so the lines taken are the shots fired.
+    private static final class ScriptFeed extends InputStream {
+        private final byte[] script;
+        private int pos;
+        int lines;
+
+        ScriptFeed(GameConfig config, SplittableRandom random) {
+            int[] order = new int[config.cells()];
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            for (int i = order.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+            }
+            StringBuilder text = new StringBuilder();
+            for (int cell : order) {
+                text.append(TextWire.serializeCoordinate(Coordinate.ofCell(cell, config.cols()))).append('\n');
+            }
+            this.script = text.toString().getBytes(StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public int read() {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (pos == script.length) return -1;
+            int end = pos;
+            while (script[end] != '\n') end++;
+            int n = Math.min(length, end + 1 - pos);
+            System.arraycopy(script, pos, buffer, offset, n);
+            pos += n;
+            if (script[pos - 1] == '\n') lines++;
+            return n;
+        }
+    }
+
+    // Copies one direction of a connection, delivering each chunk read a fixed time after it arrived
+    private static final class DelayedLink {
+        private static final Chunk END = new Chunk(0, null);
+
+        private final InputStream in;
+        private final OutputStream out;
+        private final long delayNanos;
+        private final BlockingQueue<Chunk> chunks = new LinkedBlockingQueue<>();
+
+        private DelayedLink(Socket from, Socket to, int delayMillis) throws IOException {
+            this.in = from.getInputStream();
+            this.out = to.getOutputStream();
+            this.delayNanos = delayMillis * 1_000_000L;
+        }
+
+        static void start(Socket from, Socket to, int delayMillis) throws IOException {
+            DelayedLink link = new DelayedLink(from, to, delayMillis);
+            GameServer.daemon("link-in").newThread(link::receive).start();
+            GameServer.daemon("link-out").newThread(link::deliver).start();
+        }
+
+        private void receive() {
+            byte[] buffer = new byte[4096];
+            try {
+                int n;
+                while ((n = in.read(buffer)) > 0) {
+                    chunks.add(new Chunk(System.nanoTime() + delayNanos, Arrays.copyOf(buffer, n)));
+                }
+            } catch (IOException e) {
+                // The game is over and its sockets are closed
+            }
+            chunks.add(END);
+        }
+
+        private void deliver() {
+            try {
+                Chunk chunk;
+                while ((chunk = chunks.take()) != END) {
+                    long wait = chunk.due - System.nanoTime();
+                    if (wait > 0) Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+                    out.write(chunk.bytes);
+                    out.flush();
+                }
+            } catch (IOException | InterruptedException e) {
+                // The game is over and its sockets are closed
+            }
+        }
+    }
+
+    private static final class Chunk {
+        final long due;     // System.nanoTime() at which to deliver it
+        final byte[] bytes;
+
+        Chunk(long due, byte[] bytes) {
+            this.due = due;
+            this.bytes = bytes;
+        }
+    }
+}
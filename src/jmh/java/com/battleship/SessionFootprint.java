@@ -0,0 +1,181 @@
+package com.battleship;
+
+// This class SessionFootprint measures what an idle match costs a GameServer. It starts a server in this JVM and a
+// second JVM of players, which connect in pairs, finish the handshake (and declare their fleets to an authoritative
+// server) and then go quiet. Once every session has parked, the JVM's class histogram (the one jmap -histo prints,
+// taken after a full GC) is compared with one taken before anyone connected, so the difference is exactly what the
+// server holds for its idle matches, sockets included. Threads are counted beside it, since a session blocked on a
+// thread also holds that thread's stack, which no heap histogram shows. Finally every host fires one shot, to check
+// that each parked session wakes up and relays it.
+// Every match takes two sockets in each JVM, so keep pairs under half of ulimit -n.
+// Run with: java -cp target/benchmarks.jar com.battleship.SessionFootprint <pairs>
+// With -Dbattleship.parkMillis=0 sessions never park and each keeps its thread, for comparison.
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.management.ObjectName;
+
+public class SessionFootprint {
+    private static final int TOP_CLASSES = 12;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("players")) {
+            players(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+            return;
+        }
+        int pairs = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        boolean parking = Integer.getInteger("battleship.parkMillis", 200) > 0;
+
+        GameServer server = new GameServer(0, 0);
+        GameServer.daemon("game-server").newThread(() -> {
+            try {
+                server.run();
+            } catch (IOException e) {
+                System.err.println("Game server failed: " + e.getMessage());
+            }
+        }).start();
+        while (server.getLocalPort() < 0) Thread.sleep(10);
+        Thread.sleep(500);
+        Map<String, long[]> empty = histogram();
+        int emptyThreads = ManagementFactory.getThreadMXBean().getThreadCount();
+
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        for (String flag : new String[] {"battleship.binary", "battleship.authoritative"}) {
+            command.add("-D" + flag + "=" + Boolean.getBoolean(flag));
+        }
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), SessionFootprint.class.getName(),
+                "players", Integer.toString(server.getLocalPort()), Integer.toString(pairs)));
+        Process players = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        BufferedReader fromPlayers = new BufferedReader(new InputStreamReader(players.getInputStream()));
+        PrintStream toPlayers = new PrintStream(players.getOutputStream(), true);
+        String line;
+        while ((line = fromPlayers.readLine()) != null && !line.equals("READY")) System.out.println(line);
+
+        // Parked sessions hold no thread; sessions that don't park are idle once they block on the host's socket.
+        // The pool threads that ran the handshakes of parked sessions retire after a minute idle, so wait for them too.
+        long deadline = System.nanoTime() + 120_000_000_000L;
+        while (parking && server.getParkedSessions() < pairs && System.nanoTime() < deadline) Thread.sleep(50);
+        while (parking && ManagementFactory.getThreadMXBean().getThreadCount() > emptyThreads + 2
+                && System.nanoTime() < deadline) {
+            Thread.sleep(500);
+        }
+        Thread.sleep(parking ? 500 : 2000);
+        Map<String, long[]> idle = histogram();
+        int idleThreads = ManagementFactory.getThreadMXBean().getThreadCount();
+
+        System.out.printf("%,d idle matches, %,d parked, %,d active%n", pairs, server.getParkedSessions(),
+                server.getActiveSessions());
+        long[] total = difference(idle, empty, "Total");
+        System.out.printf("heap: %,d bytes in %,d objects more than before they connected: %,d bytes per match%n",
+                total[1], total[0], total[1] / pairs);
+        System.out.printf("threads: %d before, %d idle, %.2f per match%n", emptyThreads, idleThreads,
+                (double) (idleThreads - emptyThreads) / pairs);
+        List<Map.Entry<String, long[]>> classes = new ArrayList<>();
+        for (String name : idle.keySet()) {
+            if (!name.equals("Total")) classes.add(Map.entry(name, difference(idle, empty, name)));
+        }
+        classes.sort((a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]));
+        System.out.println("per match, by class:");
+        for (Map.Entry<String, long[]> c : classes.subList(0, Math.min(TOP_CLASSES, classes.size()))) {
+            System.out.printf("  %7.2f objects %7.1f bytes  %s%n", (double) c.getValue()[0] / pairs,
+                    (double) c.getValue()[1] / pairs, c.getKey());
+        }
+
+        toPlayers.println("WAKE");
+        while ((line = fromPlayers.readLine()) != null) System.out.println(line);
+        players.waitFor();
+        server.close();
+    }
+
+    // The players' JVM: connect the pairs, go quiet until told to wake up, then fire one shot in every match
+    private static void players(int port, int pairs) throws Exception {
+        boolean binary = Boolean.getBoolean("battleship.binary");
+        GameConfig config = GameConfig.STANDARD;
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        ExecutorService helper = Executors.newSingleThreadExecutor(GameServer.daemon("host-player"));
+        Socket[][] players = new Socket[pairs][2];
+        SplittableRandom random = new SplittableRandom(1);
+        FleetGenerator fleets = new FleetGenerator(config);
+        boolean declared = false;
+        for (Socket[] pair : players) {
+            Socket host = new Socket(loopback, port);
+            Socket client = new Socket(loopback, port);
+            pair[0] = host;
+            pair[1] = client;
+            String match = Wire.readLine(host.getInputStream());
+            Wire.readLine(client.getInputStream());
+            // The host's side of the handshake waits for the client's, so it runs on a helper thread
+            Future<Handshake> hello = helper.submit(
+                    () -> Handshake.negotiate(host, NetworkedGame.Role.HOST, binary, false, config, 0, 1));
+            Handshake.negotiate(client, NetworkedGame.Role.CLIENT, binary, false, config, 0, 1);
+            hello.get();
+            declared = match.endsWith(" " + MatchEngine.FLEET);
+            if (declared) {
+                for (Socket player : pair) {
+                    int[] layout = new int[config.fleet().length];
+                    fleets.generate(layout, random);
+                    Wire.writeLine(player.getOutputStream(), MatchEngine.fleetLine(layout));
+                }
+            }
+        }
+        System.out.println("READY");
+        new BufferedReader(new InputStreamReader(System.in)).readLine();
+
+        // An authoritative server sends the host its own result first, and the client answers the same
+        int woken = 0;
+        String protocol = binary ? Wire.BINARY : Wire.TEXT;
+        for (Socket[] pair : players) {
+            Wire host = Wire.create(protocol, pair[0], config.cols());
+            Wire client = Wire.create(protocol, pair[1], config.cols());
+            host.sendMove(Coordinate.of(0, 0));
+            host.flush();
+            if (client.read() != Wire.MOVE) continue;
+            if (declared && host.read() != Wire.RESULT) continue;
+            client.sendResult(declared ? host.lastResult() : "MISS");
+            client.flush();
+            if (declared || host.read() == Wire.RESULT) woken++;
+        }
+        System.out.printf("%,d of %,d sessions relayed a shot after idling%n", woken, pairs);
+        for (Socket[] pair : players) {
+            pair[0].close();
+            pair[1].close();
+        }
+    }
+
+    // Instances and bytes per class after a full GC, as jmap -histo:live prints them; "Total" holds the sums
+    private static Map<String, long[]> histogram() throws Exception {
+        String text = (String) ManagementFactory.getPlatformMBeanServer().invoke(
+                new ObjectName("com.sun.management:type=DiagnosticCommand"), "gcClassHistogram",
+                new Object[] {null}, new String[] {String[].class.getName()});
+        Map<String, long[]> classes = new HashMap<>();
+        for (String row : text.split("\n")) {
+            String[] parts = row.trim().split("\\s+");
+            if (parts.length >= 4 && parts[0].endsWith(":")) {
+                classes.put(parts[3], new long[] {Long.parseLong(parts[1]), Long.parseLong(parts[2])});
+            } else if (parts.length == 3 && parts[0].equals("Total")) {
+                classes.put("Total", new long[] {Long.parseLong(parts[1]), Long.parseLong(parts[2])});
+            }
+        }
+        return classes;
+    }
+
+    private static long[] difference(Map<String, long[]> after, Map<String, long[]> before, String name) {
+        long[] a = after.getOrDefault(name, new long[2]);
+        long[] b = before.getOrDefault(name, new long[2]);
+        return new long[] {a[0] - b[0], a[1] - b[1]};
+    }
+}
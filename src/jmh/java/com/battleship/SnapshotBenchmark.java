@@ -0,0 +1,61 @@
+package com.battleship;
+
+// This class SnapshotBenchmark measures the GameSnapshot a NetworkedGame writes after every turn: encoding it into the
+// reused buffer, which is what the turn path pays, and decoding it, which only a resume pays. The snapshot is taken
+// mid-game, with a quarter of each board shot at, on the same scaled boards as PlacementBenchmark.
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmark {
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private GameSnapshot snapshot;
+    private ByteBuffer buffer;
+    private ByteBuffer encoded;
+
+    @Setup
+    public void setUp() {
+        GameConfig config = PlacementBenchmark.scaledConfig(size);
+        SplittableRandom random = new SplittableRandom(3);
+        Board board = new Board(config.rows(), config.cols());
+        new FleetGenerator(config).placeFleet(board, random);
+        snapshot = new GameSnapshot(config);
+        snapshot.session = random.nextLong();
+        snapshot.recordFleet(board);
+        for (int i = 0; i < config.cells() / 4; i++) {
+            snapshot.shotsTaken.add(random.nextInt(config.cells()));
+            int cell = random.nextInt(config.cells());
+            snapshot.shotsFired.add(cell);
+            if (random.nextInt(5) == 0) snapshot.hitsScored.add(cell);
+        }
+        snapshot.turns = snapshot.shotsTaken.size() + snapshot.shotsFired.size();
+        buffer = ByteBuffer.allocate(snapshot.maxSize());
+        snapshot.encode(buffer);
+        encoded = ByteBuffer.wrap(java.util.Arrays.copyOf(buffer.array(), buffer.position()));
+    }
+
+    @Benchmark
+    public int encode() {
+        buffer.clear();
+        snapshot.encode(buffer);
+        return buffer.position();
+    }
+
+    @Benchmark
+    public GameSnapshot decode() throws IOException {
+        encoded.rewind();
+        return GameSnapshot.decode(encoded);
+    }
+}
@@ -0,0 +1,56 @@
+package com.battleship;
+
+// This class WireBenchmark pushes moves and results through each Wire into an in-memory pipe and reads them back, so it
+// covers framing, buffering and parsing for both protocols but not the socket.
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireBenchmark {
+    @Param({Wire.TEXT, Wire.BINARY})
+    public String protocol;
+
+    private Wire wire;
+    private Coordinate[] moves;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        MemoryPipe pipe = new MemoryPipe();
+        wire = protocol.equals(Wire.BINARY)
+                ? new BinaryWire(pipe.input(), pipe.output(), GameConfig.STANDARD.cols())
+                : new TextWire(pipe.input(), pipe.output());
+        moves = new Coordinate[100];
+        for (int i = 0; i < moves.length; i++) moves[i] = Coordinate.of(i / 10, i % 10);
+    }
+
+    private int nextIndex() {
+        int i = next;
+        next = next + 1 == moves.length ? 0 : next + 1;
+        return i;
+    }
+
+    @Benchmark
+    public Coordinate moveRoundTrip() throws IOException {
+        wire.sendMove(moves[nextIndex()]);
+        wire.flush();
+        wire.read();
+        return wire.lastMove();
+    }
+
+    @Benchmark
+    public String resultRoundTrip() throws IOException {
+        wire.sendResult((next++ & 1) == 0 ? "HIT" : "MISS");
+        wire.flush();
+        wire.read();
+        return wire.lastResult();
+    }
+}
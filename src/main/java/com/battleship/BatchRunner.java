@@ -0,0 +1,120 @@
+package com.battleship;
+
+// This class BatchRunner plays large batches of SimulatedGames across all cores. The batch is split recursively on a
+// ForkJoinPool and every split hands one side a SplittableRandom split from its parent, so each worker draws from its
+// own generator and the games played depend only on the seed, not on the thread count.
+// Running main prints games per second, average shots to win, and how throughput scales from 1 thread to all cores.
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+public class BatchRunner {
+    private static final int LEAF_GAMES = 2_000; // Games a task plays itself instead of splitting further
+
+    // Totals for a batch; the first strategy moves first in even-numbered games and second in odd ones
+    public static class Result {
+        public long games;
+        public long firstStrategyWins;
+        public long winnerShots; // Sum over all games of the shots the winner needed
+        public long elapsedNanos;
+
+        public double gamesPerSecond() {
+            return games / (elapsedNanos / 1e9);
+        }
+
+        public double averageShotsToWin() {
+            return games == 0 ? 0 : (double) winnerShots / games;
+        }
+
+        void add(Result other) {
+            games += other.games;
+            firstStrategyWins += other.firstStrategyWins;
+            winnerShots += other.winnerShots;
+        }
+    }
+
+    // Play games between fresh instances of the two strategies on a pool of the given size
+    public static Result run(GameConfig config, int games, int threads, Supplier<? extends TargetingStrategy> first,
+                             Supplier<? extends TargetingStrategy> second, long seed) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            long start = System.nanoTime();
+            Result result = pool.invoke(new Batch(config, 0, games, new SplittableRandom(seed), first, second));
+            result.elapsedNanos = System.nanoTime() - start;
+            return result;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+        GameConfig config = args.length > 2 ? GameConfig.parse(args[2]) : GameConfig.STANDARD;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        System.out.println("=== ProbabilityDensity vs HuntTarget, " + games + " games on " + config + ", seed " + seed + " ===");
+        run(config, games / 10, cores, ProbabilityDensityStrategy::new, HuntTargetStrategy::new, seed); // Warm up the JIT
+
+        double baseline = 0;
+        for (int threads = 1; threads <= cores; threads = threads < cores ? Math.min(threads * 2, cores) : cores + 1) {
+            Result r = run(config, games, threads, ProbabilityDensityStrategy::new, HuntTargetStrategy::new, seed);
+            if (threads == 1) baseline = r.gamesPerSecond();
+            System.out.printf("%2d threads: %,12.0f games/s (%.2fx), avg %.1f shots to win, ProbabilityDensity won %.1f%%%n",
+                    threads, r.gamesPerSecond(), r.gamesPerSecond() / baseline, r.averageShotsToWin(),
+                    100.0 * r.firstStrategyWins / r.games);
+        }
+        long solved = EndgameSolver.cacheHits() + EndgameSolver.cacheMisses();
+        if (solved > 0) {
+            System.out.printf("Endgame cache served %,d of %,d positions (%.1f%%)%n", EndgameSolver.cacheHits(), solved,
+                    100.0 * EndgameSolver.cacheHits() / solved);
+        }
+    }
+
+    // Plays games [from, to), splitting in half until the range is small enough to play directly
+    private static class Batch extends RecursiveTask<Result> {
+        private final GameConfig config;
+        private final int from;
+        private final int to;
+        private final SplittableRandom random;
+        private final Supplier<? extends TargetingStrategy> first;
+        private final Supplier<? extends TargetingStrategy> second;
+
+        Batch(GameConfig config, int from, int to, SplittableRandom random, Supplier<? extends TargetingStrategy> first,
+              Supplier<? extends TargetingStrategy> second) {
+            this.config = config;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        protected Result compute() {
+            if (to - from > LEAF_GAMES) {
+                int mid = (from + to) >>> 1;
+                Batch left = new Batch(config, from, mid, random.split(), first, second);
+                left.fork();
+                Result result = new Batch(config, mid, to, random, first, second).compute();
+                result.add(left.join());
+                return result;
+            }
+
+            Result result = new Result();
+            SimulatedGame game = new SimulatedGame(config);
+            TargetingStrategy a = first.get();
+            TargetingStrategy b = second.get();
+            for (int i = from; i < to; i++) {
+                boolean aFirst = (i & 1) == 0;
+                int winner = aFirst ? game.play(a, b, random) : game.play(b, a, random);
+                if ((winner == 0) == aFirst) result.firstStrategyWins++;
+                result.winnerShots += game.shotsFired(winner);
+                result.games++;
+            }
+            return result;
+        }
+    }
+}
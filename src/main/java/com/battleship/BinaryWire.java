@@ -0,0 +1,207 @@
+package com.battleship;
+
+// This class BinaryWire is the compact framing negotiated by Wire. Every message starts with one byte:
+//   0x00           DISCONNECT
+//   0x01 - 0x04    result MISS, HIT, SUNK, WIN
+//   0x05           PING
+//   1 c xxxxxx     a move: the low 6 bits of the cell index (row * cols + col); if c is set the rest of the index
+//                  follows as a 7-bit varint. A 10x10 move therefore takes at most two bytes, and any int index at
+//                  most MAX_MOVE_BYTES; a longer move, or one whose index overflows an int, is a framing error.
+// Outgoing messages collect in one ByteBuffer and reach the socket as a single write on flush(). Both buffers are
+// borrowed from the BufferPool on first use and handed back by park().
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+class BinaryWire implements Wire {
+    static final byte DISCONNECT_CODE = 0x00;
+    static final byte MISS_CODE = 0x01;
+    static final byte HIT_CODE = 0x02;
+    static final byte SUNK_CODE = 0x03;
+    static final byte WIN_CODE = 0x04;
+    static final byte PING_CODE = 0x05;
+    private static final int MOVE_FLAG = 0x80;
+    private static final int MORE_FLAG = 0x40;
+    private static final int MAX_MOVE_BYTES = 5; // 6 + 4 * 7 bits cover every non-negative int
+
+    private final InputStream in;
+    private final OutputStream out;
+    private final int cols;
+    private ByteBuffer sendBuffer;  // Over a buffer borrowed from the BufferPool while in use, null while parked
+    private byte[] receiveBuffer;   // Likewise
+    private int receivePos;
+    private int receiveLimit;
+    private Coordinate lastMove;
+    private String lastResult;
+
+    BinaryWire(Socket socket, int cols) throws IOException {
+        this(socket.getInputStream(), socket.getOutputStream(), cols);
+    }
+
+    BinaryWire(InputStream in, OutputStream out, int cols) {
+        this.in = in;
+        this.out = out;
+        this.cols = cols;
+    }
+
+    @Override
+    public void sendMove(Coordinate c) throws IOException {
+        ensureSpace(6);
+        encodeMove(sendBuffer, c.row * cols + c.col);
+    }
+
+    @Override
+    public void sendResult(String result) throws IOException {
+        ensureSpace(1);
+        sendBuffer.put(encodeResult(result));
+    }
+
+    @Override
+    public void sendDisconnect() throws IOException {
+        ensureSpace(1);
+        sendBuffer.put(DISCONNECT_CODE);
+    }
+
+    @Override
+    public void sendPing() throws IOException {
+        ensureSpace(1);
+        sendBuffer.put(PING_CODE);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (sendBuffer == null || sendBuffer.position() == 0) return;
+        out.write(sendBuffer.array(), 0, sendBuffer.position());
+        out.flush();
+        sendBuffer.clear();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!buffered(1)) return CLOSED;
+        int b = receiveBuffer[receivePos] & 0xFF;
+        if ((b & MOVE_FLAG) != 0) {
+            int cell = b & 0x3F;
+            int length = 1;
+            if ((b & MORE_FLAG) != 0) {
+                int shift = 6;
+                int next;
+                do {
+                    if (length == MAX_MOVE_BYTES) return invalid(length); // Longer than any cell needs
+                    if (!buffered(length + 1)) return CLOSED;
+                    next = receiveBuffer[receivePos + length++] & 0xFF;
+                    if ((next & 0x7F) >>> (31 - shift) != 0) return invalid(length); // The cell overflows an int
+                    cell |= (next & 0x7F) << shift;
+                    shift += 7;
+                } while ((next & 0x80) != 0);
+            }
+            receivePos += length;
+            lastMove = Coordinate.ofCell(cell, cols);
+            return MOVE;
+        }
+        receivePos++;
+        if (b == DISCONNECT_CODE) return DISCONNECT;
+        if (b == PING_CODE) return PING;
+        if (b < MISS_CODE || b > WIN_CODE) return INVALID;
+        lastResult = decodeResult((byte) b);
+        return RESULT;
+    }
+
+    // Drop the bytes of a move that can't be decoded
+    private int invalid(int length) {
+        receivePos += length;
+        return INVALID;
+    }
+
+    @Override
+    public Coordinate lastMove() {
+        return lastMove;
+    }
+
+    @Override
+    public String lastResult() {
+        return lastResult;
+    }
+
+    @Override
+    public boolean park() {
+        if (receivePos < receiveLimit || (sendBuffer != null && sendBuffer.position() > 0)) return false;
+        if (receiveBuffer != null) BufferPool.SHARED.release(receiveBuffer);
+        if (sendBuffer != null) BufferPool.SHARED.release(sendBuffer.array());
+        receiveBuffer = null;
+        sendBuffer = null;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+        out.close();
+    }
+
+    // Write a cell index using the move framing described at the top of the file
+    static void encodeMove(ByteBuffer buf, int cell) {
+        int rest = cell >>> 6;
+        if (rest == 0) {
+            buf.put((byte) (MOVE_FLAG | cell));
+            return;
+        }
+        buf.put((byte) (MOVE_FLAG | MORE_FLAG | (cell & 0x3F)));
+        while (rest >= 0x80) {
+            buf.put((byte) (0x80 | (rest & 0x7F)));
+            rest >>>= 7;
+        }
+        buf.put((byte) rest);
+    }
+
+    static byte encodeResult(String result) {
+        switch (result) {
+            case "MISS": return MISS_CODE;
+            case "HIT": return HIT_CODE;
+            case "SUNK": return SUNK_CODE;
+            case "WIN": return WIN_CODE;
+            default: throw new IllegalArgumentException("Unknown result: " + result);
+        }
+    }
+
+    // Results decode to the same constant strings Board.attack returns, so no String is allocated per message
+    static String decodeResult(byte code) throws IOException {
+        switch (code) {
+            case MISS_CODE: return "MISS";
+            case HIT_CODE: return "HIT";
+            case SUNK_CODE: return "SUNK";
+            case WIN_CODE: return "WIN";
+            default: throw new IOException("Unknown result code: " + code);
+        }
+    }
+
+    // Flush early if the pending batch would overflow the send buffer
+    private void ensureSpace(int bytes) throws IOException {
+        if (sendBuffer == null) sendBuffer = ByteBuffer.wrap(BufferPool.SHARED.borrow());
+        if (sendBuffer.remaining() < bytes) flush();
+    }
+
+    // Whether count unread bytes are buffered, reading whatever the socket has ready until they are; false if the
+    // stream ends first. Nothing is consumed here, so a read that times out half way through a move picks up where it
+    // stopped.
+    private boolean buffered(int count) throws IOException {
+        if (receiveBuffer == null) {
+            receiveBuffer = BufferPool.SHARED.borrow();
+            receivePos = 0;
+            receiveLimit = 0;
+        }
+        while (receiveLimit - receivePos < count) {
+            if (receiveLimit == receiveBuffer.length) {
+                if (receivePos == 0) throw new IOException("Message too long");
+                System.arraycopy(receiveBuffer, receivePos, receiveBuffer, 0, receiveLimit - receivePos);
+                receiveLimit -= receivePos;
+                receivePos = 0;
+            }
+            int n = in.read(receiveBuffer, receiveLimit, receiveBuffer.length - receiveLimit);
+            if (n <= 0) return false;
+            receiveLimit += n;
+        }
+        return true;
+    }
+}
@@ -2,76 +2,161 @@ package com.battleship;
 
 // This class represents the Board layout, which players will have access too when they place ships and begin to attack
 // It will know the location of ships and can convey when a hit is taken on a ship.
+// Occupancy, hits and misses are kept as CellSet bitsets and each cell records which ship covers it, so placement checks,
+// attacks and the all-sunk check cost the same on a 1000x1000 board as on a 10x10 one. Each Ship tracks its own hits,
+// and the board counts the ships still afloat as they sink.
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class Board {
-    private final int size = 10; // Standard Battleship board size
+    private final int rows;
+    private final int cols;
     private List<Ship> ships = new ArrayList<>(); // All ships placed on this board
-    private char[][] displayGrid = new char[size][size]; // What gets printed: ' ', 'O', 'X'
+    private final int[] shipAt;            // Index + 1 of the ship covering each cell, 0 for open water
+    private int shipsAfloat;               // Ships with at least one part not hit yet
+    private final CellSet occupied;        // Cells covered by any ship
+    private final CellSet hits;            // Attacked cells that held a ship: 'X'
+    private final CellSet misses;          // Attacked cells that were empty: 'O'
+    private BoardRenderer renderer;        // Created on the first printBoard
 
     public Board() {
-        // Initialize the display grid with empty spaces
-        for (int r = 0; r < size; r++) {
-            for (int c = 0; c < size; c++) {
-                displayGrid[r][c] = ' ';
-            }
-        }
+        this(GameConfig.STANDARD.rows(), GameConfig.STANDARD.cols()); // Standard Battleship board size
+    }
+
+    public Board(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.shipAt = new int[rows * cols];
+        this.occupied = new CellSet(rows * cols);
+        this.hits = new CellSet(rows * cols);
+        this.misses = new CellSet(rows * cols);
     }
 
     // Try placing a ship on the board; only succeeds if all parts are valid
     public boolean placeShip(Ship ship) {
-        for (Coordinate c : ship.getCoordinates()) {
-            if (!isInBounds(c) || isOccupied(c)) return false;
+        List<Coordinate> coords = ship.getCoordinates();
+        for (int i = 0; i < coords.size(); i++) {
+            Coordinate c = coords.get(i);
+            if (!isInBounds(c) || occupied.contains(cellOf(c))) return false;
+            for (int j = 0; j < i; j++) {
+                if (c.equals(coords.get(j))) return false; // A ship can't cover the same cell twice
+            }
         }
         ships.add(ship);
+        int id = ships.size();
+        for (Coordinate c : coords) {
+            int cell = cellOf(c);
+            occupied.add(cell);
+            shipAt[cell] = id;
+        }
+        if (!ship.isSunk()) shipsAfloat++;
         return true;
     }
 
     // Check if a coordinate is inside the board
     public boolean isInBounds(Coordinate c) {
-        return c.row >= 0 && c.row < size && c.col >= 0 && c.col < size;
+        return c.row >= 0 && c.row < rows && c.col >= 0 && c.col < cols;
     }
 
     // Check if a coordinate is already occupied by another ship
     public boolean isOccupied(Coordinate c) {
-        return ships.stream().anyMatch(ship -> ship.occupies(c));
+        return isInBounds(c) && occupied.contains(cellOf(c));
     }
 
     // Process an attack on a cell, and update display accordingly
     public String attack(Coordinate c) {
-        for (Ship ship : ships) {
-            if (ship.occupies(c)) {
-                ship.registerHit(c);
-                displayGrid[c.row][c.col] = 'X'; // Hit
-                return ship.isSunk() ? "SUNK" : "HIT";
-            }
+        if (!isInBounds(c)) throw new IndexOutOfBoundsException("Coordinate outside the board: " + c);
+        return attackCell(cellOf(c));
+    }
+
+    // Same as attack(Coordinate), for callers that keep coordinates as plain ints
+    public String attack(int row, int col) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols) {
+            throw new IndexOutOfBoundsException("Coordinate outside the board: (" + row + "," + col + ")");
         }
-        displayGrid[c.row][c.col] = 'O'; // Miss
-        return "MISS";
+        return attackCell(row * cols + col);
+    }
+
+    // Mark a shot at a board whose ships we can't see, such as the opponent's, with the result we were told of it
+    public void recordShot(Coordinate c, boolean hit) {
+        if (!isInBounds(c)) throw new IndexOutOfBoundsException("Coordinate outside the board: " + c);
+        if (hit) hits.add(cellOf(c));
+        else misses.add(cellOf(c));
+    }
+
+    // The ships on this board, in the order they were placed
+    public List<Ship> getShips() {
+        return Collections.unmodifiableList(ships);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
     }
 
     // Returns true if all ships have been sunk
     public boolean allShipsSunk() {
-        return ships.stream().allMatch(Ship::isSunk);
+        return shipsAfloat == 0;
+    }
+
+    // Number of ships not sunk yet
+    public int getShipsAfloat() {
+        return shipsAfloat;
     }
 
     // Print the board to console. If showShips is true, ship locations are shown as 'S'
+    // The frame is built in one buffer and written with a single call; see BoardRenderer
     public void printBoard(boolean showShips) {
-        System.out.println("  A B C D E F G H I J");
-        for (int r = 0; r < size; r++) {
-            System.out.print((r + 1) + (r + 1 < 10 ? " " : "")); // Add spacing for single-digit rows
-            for (int c = 0; c < size; c++) {
-                char ch = displayGrid[r][c];
-                // If it's an unmarked space and we want to show ships, show 'S'
-                if (ch == ' ' && showShips && isOccupied(new Coordinate(r, c))) {
-                    System.out.print("S ");
-                } else {
-                    System.out.print(ch + " ");
-                }
-            }
-            System.out.println();
+        if (renderer == null) renderer = new BoardRenderer();
+        renderer.print(this, showShips, System.out);
+    }
+
+    // Copy the cells taken by ships into the given set, which must be sized for this board
+    void copyOccupiedInto(CellSet into) {
+        into.clear();
+        into.addAll(occupied);
+    }
+
+    // Resolve an attack on a packed cell index, timed into Metrics.BOARD_ATTACK when metrics are on
+    private String attackCell(int cell) {
+        if (!Metrics.ENABLED) return resolveAttack(cell);
+        long start = System.nanoTime();
+        String result = resolveAttack(cell);
+        Metrics.BOARD_ATTACK.record(System.nanoTime() - start);
+        return result;
+    }
+
+    private String resolveAttack(int cell) {
+        int id = shipAt[cell];
+        if (id == 0) {
+            misses.add(cell);
+            return "MISS";
         }
+        Ship ship = ships.get(id - 1);
+        if (!hits.contains(cell)) {
+            hits.add(cell);
+            boolean wasSunk = ship.isSunk();
+            ship.registerHit(Coordinate.ofCell(cell, cols));
+            if (!wasSunk && ship.isSunk()) shipsAfloat--;
+        }
+        return ship.isSunk() ? "SUNK" : "HIT";
+    }
+
+    // What a cell looks like when printed: 'X' hit, 'O' miss, 'S' unhit ship (only if showShips), ' ' otherwise
+    char cellChar(int cell, boolean showShips) {
+        if (hits.contains(cell)) return 'X';
+        if (misses.contains(cell)) return 'O';
+        if (showShips && occupied.contains(cell)) return 'S';
+        return ' ';
+    }
+
+    // Pack a coordinate into its cell index
+    private int cellOf(Coordinate c) {
+        return c.row * cols + c.col;
     }
-}
\ No newline at end of file
+}
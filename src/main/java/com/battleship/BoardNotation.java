@@ -0,0 +1,74 @@
+package com.battleship;
+
+// This class BoardNotation reads and writes the "B4" style names players type and the text protocol sends. Columns are
+// lettered like spreadsheet columns (A..Z, then AA, AB, ...) so boards wider than 26 columns still have a name for every
+// cell, and rows are numbered from 1. Parsing walks the characters directly; it never uses regex or substrings.
+
+final class BoardNotation {
+    private static final int MAX_NAMED = 46340; // Largest side whose packed cells fit in an int
+
+    private BoardNotation() {
+    }
+
+    // Letters for a 0-based column: 0 -> "A", 25 -> "Z", 26 -> "AA"
+    static String columnLabel(int col) {
+        StringBuilder sb = new StringBuilder(3);
+        appendColumnLabel(sb, col);
+        return sb.toString();
+    }
+
+    static void appendColumnLabel(StringBuilder sb, int col) {
+        int start = sb.length();
+        int n = col + 1;
+        while (n > 0) {
+            n--;
+            sb.insert(start, (char) ('A' + n % 26));
+            n /= 26;
+        }
+    }
+
+    // Number of letters in the widest column label of a board this wide
+    static int columnLabelWidth(int cols) {
+        int width = 1;
+        for (long span = 26; cols > span; span = span * 26 + 26) width++;
+        return width;
+    }
+
+    // "B4" for row 3, column 1
+    static String format(int row, int col) {
+        StringBuilder sb = new StringBuilder(6);
+        appendColumnLabel(sb, col);
+        return sb.append(row + 1).toString();
+    }
+
+    // Parse a name like "b4" or "AA10" into a packed cell (row * cols + col); -1 if malformed or off the board
+    static int parseCell(CharSequence text, int rows, int cols) {
+        int len = text.length();
+        int i = 0;
+        long col = 0;
+        while (i < len) {
+            char ch = text.charAt(i);
+            if (ch >= 'a' && ch <= 'z') ch -= 'a' - 'A';
+            if (ch < 'A' || ch > 'Z') break;
+            col = col * 26 + (ch - 'A' + 1);
+            if (col > cols) return -1;
+            i++;
+        }
+        if (i == 0 || i == len) return -1; // Needs letters, then digits
+        long row = 0;
+        while (i < len) {
+            char ch = text.charAt(i++);
+            if (ch < '0' || ch > '9') return -1;
+            row = row * 10 + (ch - '0');
+            if (row > rows) return -1;
+        }
+        if (row < 1) return -1;
+        return (int) (row - 1) * cols + (int) (col - 1);
+    }
+
+    // Parse a name without knowing the board; null if malformed. The caller checks it is on its board.
+    static Coordinate parseCoordinate(CharSequence text) {
+        int cell = parseCell(text, MAX_NAMED, MAX_NAMED);
+        return cell < 0 ? null : Coordinate.ofCell(cell, MAX_NAMED);
+    }
+}
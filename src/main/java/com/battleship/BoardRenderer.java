@@ -0,0 +1,142 @@
+package com.battleship;
+
+// This class BoardRenderer draws a Board as text. A frame is built in a reusable StringBuilder and reaches the stream as
+// a single write, instead of one synchronized System.out.print per cell.
+// In incremental mode the board sits at a fixed place on an ANSI terminal: the first frame draws it in full, and every
+// later frame only moves the cursor to the cells whose character changed and rewrites those, so a turn costs output
+// proportional to what changed rather than to the board area.
+
+import java.io.PrintStream;
+
+public class BoardRenderer {
+    private static final char ESC = 27;
+
+    private final boolean incremental;
+    private final int top;               // Terminal row (1-based) of the header line, in incremental mode
+    private final StringBuilder frame = new StringBuilder();
+    private byte[] bytes = new byte[256];
+    private String header;               // Column header, rebuilt only when the board shape changes
+    private int headerCols = -1;
+    private int headerLabelWidth = -1;
+    private char[] shown;                // What each cell showed in the last incremental frame; null before the first
+
+    // Full frames, printed wherever the cursor is
+    public BoardRenderer() {
+        this(false, 1);
+    }
+
+    private BoardRenderer(boolean incremental, int top) {
+        this.incremental = incremental;
+        this.top = top;
+    }
+
+    // Diff-based frames for a board whose header line is drawn at the given terminal row
+    public static BoardRenderer incremental(int top) {
+        return new BoardRenderer(true, top);
+    }
+
+    // Render the board and write it to out in one go
+    public void print(Board board, boolean showShips, PrintStream out) {
+        frame.setLength(0);
+        render(board, showShips, frame);
+        write(frame, out);
+    }
+
+    // Append the next frame of the board to the given buffer
+    public void render(Board board, boolean showShips, StringBuilder out) {
+        int cells = board.getRows() * board.getCols();
+        if (!incremental) {
+            renderFull(board, showShips, out);
+        } else if (shown == null || shown.length != cells) {
+            shown = new char[cells];
+            moveTo(out, top, 1);
+            renderFull(board, showShips, out);
+        } else {
+            renderChanges(board, showShips, out);
+        }
+    }
+
+    // Forget the last frame, so the next incremental one is drawn in full (e.g. after the screen was cleared)
+    public void invalidate() {
+        shown = null;
+    }
+
+    // Write an ASCII frame as one block of bytes and flush it
+    public void write(CharSequence text, PrintStream out) {
+        int n = text.length();
+        if (bytes.length < n) bytes = new byte[Math.max(n, bytes.length * 2)];
+        for (int i = 0; i < n; i++) {
+            char ch = text.charAt(i);
+            bytes[i] = (byte) (ch < 0x80 ? ch : '?');
+        }
+        out.write(bytes, 0, n);
+        out.flush();
+    }
+
+    // ANSI sequence placing the cursor at a 1-based terminal row and column
+    static void moveTo(StringBuilder out, int row, int col) {
+        out.append(ESC).append('[').append(row).append(';').append(col).append('H');
+    }
+
+    // ANSI sequence clearing the screen from the cursor down
+    static void clearBelow(StringBuilder out) {
+        out.append(ESC).append("[J");
+    }
+
+    // The whole board: a header of column letters, then one line per row
+    private void renderFull(Board board, boolean showShips, StringBuilder out) {
+        int rows = board.getRows();
+        int cols = board.getCols();
+        int labelWidth = Integer.toString(rows).length();
+        int cellWidth = BoardNotation.columnLabelWidth(cols);
+        out.append(header(labelWidth, cellWidth, cols));
+        if (incremental) out.append(ESC).append("[K"); // Clear whatever an older, wider frame left on the line
+        out.append('\n');
+
+        for (int r = 0, cell = 0; r < rows; r++) {
+            int start = out.length();
+            out.append(r + 1);
+            for (int pad = labelWidth - (out.length() - start); pad > 0; pad--) out.append(' '); // Add spacing for shorter row numbers
+            for (int c = 0; c < cols; c++, cell++) {
+                char ch = board.cellChar(cell, showShips);
+                if (incremental) shown[cell] = ch;
+                out.append(ch);
+                for (int pad = 0; pad < cellWidth; pad++) out.append(' ');
+            }
+            if (incremental) out.append(ESC).append("[K");
+            out.append('\n');
+        }
+    }
+
+    // Only the cells that look different from the last frame, each behind a cursor move; then park below the board
+    private void renderChanges(Board board, boolean showShips, StringBuilder out) {
+        int rows = board.getRows();
+        int cols = board.getCols();
+        int labelWidth = Integer.toString(rows).length();
+        int cellWidth = BoardNotation.columnLabelWidth(cols);
+        for (int cell = 0; cell < shown.length; cell++) {
+            char ch = board.cellChar(cell, showShips);
+            if (ch == shown[cell]) continue;
+            shown[cell] = ch;
+            moveTo(out, top + 1 + cell / cols, labelWidth + (cell % cols) * (cellWidth + 1) + 1);
+            out.append(ch);
+        }
+        moveTo(out, top + 1 + rows, 1);
+    }
+
+    private String header(int labelWidth, int cellWidth, int cols) {
+        if (cols != headerCols || labelWidth != headerLabelWidth) {
+            StringBuilder sb = new StringBuilder(labelWidth + cols * (cellWidth + 1));
+            for (int i = 0; i < labelWidth; i++) sb.append(' ');
+            for (int c = 0; c < cols; c++) {
+                int start = sb.length();
+                BoardNotation.appendColumnLabel(sb, c);
+                for (int pad = cellWidth + 1 - (sb.length() - start); pad > 0; pad--) sb.append(' ');
+            }
+            header = sb.toString().stripTrailing();
+            headerCols = cols;
+            headerLabelWidth = labelWidth;
+        }
+        return header;
+    }
+}
@@ -0,0 +1,28 @@
+package com.battleship;
+
+// This class BufferPool lends out the small byte arrays the Wires read and write through. A wire borrows its buffers
+// when traffic arrives and gives them back when its connection goes idle (see Wire.park()), so a server holding many
+// idle matches keeps buffers only for the few that are moving. Messages are a few bytes each, so one SIZE buffer holds
+// many of them; a pool keeps up to MAX_IDLE spare buffers and lets the garbage collector take any beyond that.
+
+import java.util.ArrayDeque;
+
+final class BufferPool {
+    static final int SIZE = 256;
+    private static final int MAX_IDLE = 4096;
+
+    static final BufferPool SHARED = new BufferPool();
+
+    private final ArrayDeque<byte[]> idle = new ArrayDeque<>();
+
+    // A SIZE buffer, from the spares if there are any; its contents are whatever the last borrower left
+    synchronized byte[] borrow() {
+        byte[] buffer = idle.poll();
+        return buffer != null ? buffer : new byte[SIZE];
+    }
+
+    // Take a buffer back; the caller must not touch it again. A buffer that is never given back is simply collected.
+    synchronized void release(byte[] buffer) {
+        if (idle.size() < MAX_IDLE) idle.push(buffer);
+    }
+}
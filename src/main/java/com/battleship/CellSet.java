@@ -0,0 +1,104 @@
+package com.battleship;
+
+// This class CellSet is a fixed-size set of board cells stored as primitive bits. A cell is the packed index
+// row * size + col. Boards of up to 128 cells (the standard 10x10 included) fit entirely in two longs; larger grids
+// fall back to a long[].
+
+public final class CellSet {
+    private static final int INLINE_CELLS = 128;
+
+    private final int capacity;
+    private final long[] words; // Only used when capacity > INLINE_CELLS, null otherwise
+    private long lo;            // Cells 0..63
+    private long hi;            // Cells 64..127
+
+    public CellSet(int capacity) {
+        if (capacity < 0) throw new IllegalArgumentException("Negative capacity: " + capacity);
+        this.capacity = capacity;
+        this.words = capacity > INLINE_CELLS ? new long[(capacity + 63) >>> 6] : null;
+    }
+
+    // Number of cells this set can hold
+    public int capacity() {
+        return capacity;
+    }
+
+    public boolean contains(int cell) {
+        if (words != null) return (words[cell >>> 6] & (1L << cell)) != 0;
+        return ((cell < 64 ? lo : hi) & (1L << cell)) != 0;
+    }
+
+    public void add(int cell) {
+        if (words != null) words[cell >>> 6] |= 1L << cell;
+        else if (cell < 64) lo |= 1L << cell;
+        else hi |= 1L << cell;
+    }
+
+    public void remove(int cell) {
+        if (words != null) words[cell >>> 6] &= ~(1L << cell);
+        else if (cell < 64) lo &= ~(1L << cell);
+        else hi &= ~(1L << cell);
+    }
+
+    public void clear() {
+        lo = 0;
+        hi = 0;
+        if (words != null) java.util.Arrays.fill(words, 0);
+    }
+
+    public boolean isEmpty() {
+        if (words == null) return (lo | hi) == 0;
+        for (long w : words) {
+            if (w != 0) return false;
+        }
+        return true;
+    }
+
+    // Number of cells in the set
+    public int size() {
+        if (words == null) return Long.bitCount(lo) + Long.bitCount(hi);
+        int n = 0;
+        for (long w : words) n += Long.bitCount(w);
+        return n;
+    }
+
+    // True if every cell of other is also in this set (both sets must have the same capacity)
+    public boolean containsAll(CellSet other) {
+        if (words == null) return (other.lo & ~lo) == 0 && (other.hi & ~hi) == 0;
+        for (int i = 0; i < words.length; i++) {
+            if ((other.words[i] & ~words[i]) != 0) return false;
+        }
+        return true;
+    }
+
+    // True if the two sets share at least one cell (both sets must have the same capacity)
+    public boolean intersects(CellSet other) {
+        if (words == null) return (other.lo & lo) != 0 || (other.hi & hi) != 0;
+        for (int i = 0; i < words.length; i++) {
+            if ((other.words[i] & words[i]) != 0) return true;
+        }
+        return false;
+    }
+
+    // The i-th run of 64 cells as bits, for serializing the set; i goes up to (capacity + 63) / 64
+    long word(int i) {
+        if (words != null) return words[i];
+        return i == 0 ? lo : hi;
+    }
+
+    void setWord(int i, long bits) {
+        if (words != null) words[i] = bits;
+        else if (i == 0) lo = bits;
+        else hi = bits;
+    }
+
+    // Add every cell of other to this set (both sets must have the same capacity)
+    public void addAll(CellSet other) {
+        if (words == null) {
+            lo |= other.lo;
+            hi |= other.hi;
+            return;
+        }
+        for (int i = 0; i < words.length; i++) words[i] |= other.words[i];
+    }
+}
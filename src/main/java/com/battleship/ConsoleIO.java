@@ -0,0 +1,177 @@
+package com.battleship;
+
+// This class ConsoleIO is the one place the games talk to the player through: lines and tokens in, text out.
+// Input is read in large blocks and cut into lines or tokens by hand (a token runs up to the next blank or comma), with
+// no Scanner and no regular expressions, and a token is handed out in a reused buffer that parses straight into a cell.
+// Output collects in one buffer that reaches the terminal with a single write when the game flushes it, once per turn,
+// and before any read that waits for a player, so a prompt is always on screen when input is wanted.
+//
+// Every game in the process shares ConsoleIO.system(), so StartGame's questions and the game's moves come out of the
+// same buffered stdin. With --script <file> (or --script - for stdin) moves come from a recorded script instead: the
+// games skip the questions a script can't answer, echo each line they take after its prompt, so the output reads like
+// the session it replays, and stop when the script runs out. A script replays as fast as the game can take the moves.
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+public final class ConsoleIO {
+    private static ConsoleIO system;
+
+    private final InputStream in;
+    private final byte[] inBuffer = new byte[1 << 16];
+    private int inPos;
+    private int inEnd;
+    private boolean inEof;
+    private final StringBuilder token = new StringBuilder();
+    private byte[] lineBytes = new byte[256];
+
+    private final OutputStream out;
+    private byte[] outBuffer = new byte[1 << 16];
+    private int outCount;
+    private final Charset charset = Charset.defaultCharset();
+    private final String newline = System.lineSeparator();
+    private final boolean scripted;
+
+    ConsoleIO(InputStream in, OutputStream out, boolean scripted) {
+        this.in = in;
+        this.out = out;
+        this.scripted = scripted;
+    }
+
+    // The interactive console on stdin and stdout, shared by everything in the process
+    public static synchronized ConsoleIO system() {
+        if (system == null) system = new ConsoleIO(System.in, System.out, false);
+        return system;
+    }
+
+    // The script named with --script <file> ("-" reads it from stdin), or the interactive console
+    public static ConsoleIO fromArgs(String[] args) throws IOException {
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (!args[i].equals("--script")) continue;
+            InputStream script = args[i + 1].equals("-") ? System.in : new FileInputStream(args[i + 1]);
+            return new ConsoleIO(script, System.out, true);
+        }
+        return system();
+    }
+
+    // True when input comes from a recorded script rather than a person at the keyboard
+    public boolean isScripted() {
+        return scripted;
+    }
+
+    // === INPUT ===
+
+    // The next line without its line break, or null at the end of input; pending output is flushed first for a person
+    public String readLine() throws IOException {
+        if (!scripted) flush();
+        if (!fill()) return null;
+        int n = 0;
+        while (fill()) {
+            byte b = inBuffer[inPos++];
+            if (b == '\n') break;
+            if (n == lineBytes.length) lineBytes = Arrays.copyOf(lineBytes, n * 2);
+            lineBytes[n++] = b;
+        }
+        if (n > 0 && lineBytes[n - 1] == '\r') n--;
+        return new String(lineBytes, 0, n, charset);
+    }
+
+    // The next token, or null at the end of input. The buffer is reused by the next call; copy it to keep it.
+    public CharSequence nextToken() throws IOException {
+        if (!scripted) flush();
+        while (fill() && isSeparator(inBuffer[inPos])) inPos++;
+        if (!fill()) return null;
+        token.setLength(0);
+        while (fill() && !isSeparator(inBuffer[inPos])) token.append((char) (inBuffer[inPos++] & 0xFF));
+        return token;
+    }
+
+    // Make sure at least one byte is buffered; false at the end of input
+    private boolean fill() throws IOException {
+        if (inPos < inEnd) return true;
+        if (inEof) return false;
+        int n = in.read(inBuffer, 0, inBuffer.length);
+        if (n <= 0) {
+            inEof = true;
+            return false;
+        }
+        inPos = 0;
+        inEnd = n;
+        return true;
+    }
+
+    private static boolean isSeparator(int ch) {
+        return ch == ' ' || ch == ',' || ch == '\t' || ch == '\n' || ch == '\r';
+    }
+
+    // Where the first token at or after from starts in a line, or the line's length if there is none
+    static int tokenStart(CharSequence line, int from) {
+        while (from < line.length() && isSeparator(line.charAt(from))) from++;
+        return from;
+    }
+
+    // Where the token starting at from ends in a line
+    static int tokenEnd(CharSequence line, int from) {
+        while (from < line.length() && !isSeparator(line.charAt(from))) from++;
+        return from;
+    }
+
+    // === OUTPUT, buffered until flush() ===
+
+    public void print(CharSequence text) {
+        int n = text.length();
+        synchronized (out) {
+            reserve(n);
+            for (int i = 0; i < n; i++) {
+                char ch = text.charAt(i);
+                if (ch >= 0x80) { // Rare: encode the rest properly
+                    byte[] rest = text.subSequence(i, n).toString().getBytes(charset);
+                    reserve(rest.length);
+                    System.arraycopy(rest, 0, outBuffer, outCount, rest.length);
+                    outCount += rest.length;
+                    return;
+                }
+                outBuffer[outCount++] = (byte) ch;
+            }
+        }
+    }
+
+    public void println(CharSequence text) {
+        synchronized (out) {
+            print(text);
+            print(newline);
+        }
+    }
+
+    public void println() {
+        print(newline);
+    }
+
+    public void printf(String format, Object... args) {
+        print(String.format(format, args));
+    }
+
+    // Hand everything printed since the last flush to the terminal in one write
+    public void flush() {
+        synchronized (out) {
+            if (outCount == 0) return;
+            try {
+                out.write(outBuffer, 0, outCount);
+                out.flush();
+            } catch (IOException e) {
+                // Like System.out, a console that can't be written to is not the game's problem
+            }
+            outCount = 0;
+        }
+    }
+
+    private void reserve(int n) {
+        if (outCount + n > outBuffer.length) {
+            outBuffer = Arrays.copyOf(outBuffer, Math.max(outCount + n, outBuffer.length * 2));
+        }
+    }
+}
@@ -2,9 +2,17 @@ package com.battleship;
 
 // This class Coordinate is just a simple coordinate system that will be used by other classes to manage placements, hits, misses, etc.
 // Ships will be placed on this coordinate system that we can define below.
+// Inside the game, cells are mostly plain int indices (row * cols + col); a Coordinate is only made where an API needs
+// one. Coordinate.of hands out one shared instance per cell of the top-left 128x128 corner, which covers every board
+// of the classic size and most custom ones, so wire moves, ship parts and typed targets stop allocating.
 
 // A simple immutable coordinate (row, col) used for ship placement and attacks
 public class Coordinate {
+    private static final int CACHED_SIDE = 128;
+    // Filled on first use. Two threads may race to fill a slot; both get an equal Coordinate, and the final fields
+    // make either one safe to publish this way.
+    private static final Coordinate[] CACHE = new Coordinate[CACHED_SIDE * CACHED_SIDE];
+
     public final int row;
     public final int col;
 
@@ -13,6 +21,20 @@ public class Coordinate {
         this.col = col;
     }
 
+    // The shared Coordinate for (row, col); a new one outside the cached corner or for negative values
+    public static Coordinate of(int row, int col) {
+        if ((row | col) < 0 || row >= CACHED_SIDE || col >= CACHED_SIDE) return new Coordinate(row, col);
+        int slot = row * CACHED_SIDE + col;
+        Coordinate c = CACHE[slot];
+        if (c == null) CACHE[slot] = c = new Coordinate(row, col);
+        return c;
+    }
+
+    // The Coordinate of a packed cell index on a board cols wide
+    public static Coordinate ofCell(int cell, int cols) {
+        return of(cell / cols, cell % cols);
+    }
+
     // Equality check to compare two coordinates
     // We override the original equals function, to instead use this one for coordinates specifically
     @Override
@@ -0,0 +1,51 @@
+package com.battleship;
+
+// This class EdgePlacement pushes its fleet against the sides of the board, where a density-driven shooter expects the
+// fewest ships because fewer placements cover the border cells. Of CANDIDATES uniform layouts it keeps the one with the
+// most ship cells on the outer rows and columns.
+
+import java.util.SplittableRandom;
+
+public class EdgePlacement implements PlacementStrategy {
+    private static final int CANDIDATES = 16;
+
+    private GameConfig config;
+    private int[] fleet;
+    private FleetGenerator generator;
+    private int[] candidate = new int[0];
+
+    @Override
+    public void place(GameConfig config, int[] layout, SplittableRandom random) {
+        if (!config.equals(this.config)) {
+            this.config = config;
+            fleet = config.fleet();
+            generator = new FleetGenerator(config);
+            candidate = new int[layout.length];
+        }
+        int most = -1;
+        for (int attempt = 0; attempt < CANDIDATES; attempt++) {
+            generator.generate(candidate, random);
+            int onEdge = edgeCells();
+            if (onEdge > most) {
+                most = onEdge;
+                System.arraycopy(candidate, 0, layout, 0, layout.length);
+            }
+        }
+    }
+
+    private int edgeCells() {
+        int rows = config.rows();
+        int cols = config.cols();
+        int count = 0;
+        for (int i = 0; i < candidate.length; i++) {
+            int entry = candidate[i];
+            int step = FleetGenerator.isVertical(entry) ? cols : 1;
+            for (int j = 0, cell = FleetGenerator.startCell(entry); j < fleet[i]; j++, cell += step) {
+                int r = cell / cols;
+                int c = cell % cols;
+                if (r == 0 || r == rows - 1 || c == 0 || c == cols - 1) count++;
+            }
+        }
+        return count;
+    }
+}
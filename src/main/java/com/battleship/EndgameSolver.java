@@ -0,0 +1,236 @@
+package com.battleship;
+
+// This class EndgameSolver picks the best shot exactly once few ships are left afloat. It lists every placement of each
+// remaining ship that avoids misses and sunk ships, enumerates every way of laying the remaining fleet out on them
+// without overlaps so that every open hit is covered, and fires at the unknown cell that the most of those layouts put a
+// ship on. That is the true probability of a hit given everything seen, where ProbabilityDensityStrategy's running
+// counts only approximate it.
+//
+// Enumeration is exponential, so it is only tried when the placement counts say the layouts number at most
+// MAX_LAYOUTS, and it gives up after MAX_NODES steps. Answers go into one PositionCache shared by every solver, keyed
+// by a 64-bit hash of the board size, the unknown and open-hit bitsets and the ships still afloat; a position that
+// comes up again, in this game or any other simulated on any thread, is answered without enumerating it again.
+// The board state uses ProbabilityDensityStrategy's cell codes. An instance keeps its scratch arrays between calls and
+// is not thread-safe; give each strategy its own.
+
+import java.util.Arrays;
+
+final class EndgameSolver {
+    static final int MAX_SHIPS = 3;                  // Only solve with at most this many ships afloat
+    private static final long MAX_LAYOUTS = 20_000;  // Upper estimate of the layouts we are willing to enumerate
+    private static final int MAX_NODES = 1_000_000;
+    private static final int NO_ANSWER = -1;         // Also cached for positions no layout fits
+
+    private static final PositionCache cache =
+            new PositionCache(Integer.getInteger("battleship.endgameCacheEntries", 1 << 16));
+
+    private final int rows;
+    private final int cols;
+    private final int[] lengths;        // Distinct ship lengths, longest first, as in ProbabilityDensityStrategy
+    private final int[][] placements;   // Per length: start cell * 2, plus 1 if the placement runs down
+    private final int[][] placementHits; // Per length: open hits each placement covers
+    private final int[] placementCount;
+    private final int[] shipLength;     // The ships afloat, longest first, as indices into lengths
+    private final int[] chosen;         // Placement chosen for each ship in the current layout
+    private final boolean[] occupied;
+    private final long[] weight;        // Layouts found with a ship on each cell
+    private long nodes;
+
+    EndgameSolver(int rows, int cols, int[] lengths) {
+        this.rows = rows;
+        this.cols = cols;
+        this.lengths = lengths.clone();
+        int cells = rows * cols;
+        placements = new int[lengths.length][2 * cells];
+        placementHits = new int[lengths.length][2 * cells];
+        placementCount = new int[lengths.length];
+        shipLength = new int[MAX_SHIPS];
+        chosen = new int[MAX_SHIPS];
+        occupied = new boolean[cells];
+        weight = new long[cells];
+    }
+
+    // Cache lookups that found an answer and that had to solve, across every solver
+    static long cacheHits() {
+        return cache.hits();
+    }
+
+    static long cacheMisses() {
+        return cache.misses();
+    }
+
+    // The unknown cell most likely to hold a ship, or -1 if the position is too big to enumerate or no layout fits it.
+    // remaining[k] counts the ships of lengths[k] still afloat, openHits the cells in state HIT.
+    int bestShot(byte[] state, int[] remaining, int openHits) {
+        int ships = 0;
+        for (int k = 0; k < lengths.length; k++) ships += remaining[k];
+        // With one ship left and nothing to chase, the density counts are already exact
+        if (ships == 0 || ships > MAX_SHIPS || ships == 1 && openHits == 0) return NO_ANSWER;
+
+        long key = positionKey(state, remaining);
+        int cached = cache.get(key);
+        if (cached != PositionCache.MISSING) {
+            return cached >= 0 && state[cached] == ProbabilityDensityStrategy.UNKNOWN ? cached : NO_ANSWER;
+        }
+        if (!prepare(state, remaining)) return NO_ANSWER; // Too big to solve; not cached, as it would only crowd out others
+        int best = enumerateBest(ships, state, openHits);
+        cache.put(key, best);
+        return best;
+    }
+
+    // Solve without the cache; used by benchmarks
+    int solve(byte[] state, int[] remaining, int openHits) {
+        if (!prepare(state, remaining)) return NO_ANSWER;
+        int ships = 0;
+        for (int k = 0; k < lengths.length; k++) ships += remaining[k];
+        return enumerateBest(ships, state, openHits);
+    }
+
+    // List the placements of every ship afloat; false if they could form more than MAX_LAYOUTS layouts
+    private boolean prepare(byte[] state, int[] remaining) {
+        int ships = 0;
+        long estimate = 1;
+        for (int k = 0; k < lengths.length; k++) {
+            if (remaining[k] == 0) continue;
+            listPlacements(k, state);
+            for (int i = 0; i < remaining[k]; i++) {
+                shipLength[ships++] = k;
+                estimate = Math.min(estimate * placementCount[k], MAX_LAYOUTS + 1);
+            }
+        }
+        return estimate <= MAX_LAYOUTS;
+    }
+
+    private int enumerateBest(int ships, byte[] state, int openHits) {
+        Arrays.fill(weight, 0);
+        nodes = 0;
+        if (!enumerate(0, ships, 0, openHits, state)) return NO_ANSWER;
+
+        int best = NO_ANSWER;
+        long bestWeight = 0;
+        for (int cell = 0; cell < weight.length; cell++) {
+            if (weight[cell] > bestWeight && state[cell] == ProbabilityDensityStrategy.UNKNOWN) {
+                bestWeight = weight[cell];
+                best = cell;
+            }
+        }
+        return best;
+    }
+
+    // Every placement of lengths[k] over cells that are unknown or open hits, with at least one unknown cell (a ship
+    // lying only on hits would already have been reported sunk)
+    private void listPlacements(int k, byte[] state) {
+        int len = lengths[k];
+        int[] list = placements[k];
+        int[] hits = placementHits[k];
+        int n = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int start = r * cols + c;
+                if (c + len <= cols) {
+                    int h = countHits(start, 1, len, state);
+                    if (h >= 0 && h < len) {
+                        list[n] = start << 1;
+                        hits[n++] = h;
+                    }
+                }
+                if (r + len <= rows && len > 1) {
+                    int h = countHits(start, cols, len, state);
+                    if (h >= 0 && h < len) {
+                        list[n] = start << 1 | 1;
+                        hits[n++] = h;
+                    }
+                }
+            }
+        }
+        placementCount[k] = n;
+    }
+
+    // Open hits on the placement, or -1 if it crosses a miss or a sunk ship
+    private static int countHits(int start, int step, int len, byte[] state) {
+        int hits = 0;
+        for (int i = 0, y = start; i < len; i++, y += step) {
+            byte s = state[y];
+            if (s == ProbabilityDensityStrategy.HIT) hits++;
+            else if (s != ProbabilityDensityStrategy.UNKNOWN) return -1;
+        }
+        return hits;
+    }
+
+    // Place ship i and the ones after it every possible way; false if the node budget ran out. Ships of the same
+    // length take placements in increasing order, so each layout is counted once.
+    private boolean enumerate(int i, int ships, int covered, int openHits, byte[] state) {
+        if (++nodes > MAX_NODES) return false;
+        if (i == ships) {
+            if (covered == openHits) countLayout(ships, state);
+            return true;
+        }
+        int unplacedCells = 0;
+        for (int j = i; j < ships; j++) unplacedCells += lengths[shipLength[j]];
+        if (covered + unplacedCells < openHits) return true; // Not enough ship left to cover the open hits
+
+        int k = shipLength[i];
+        int len = lengths[k];
+        int from = i > 0 && shipLength[i - 1] == k ? chosen[i - 1] + 1 : 0;
+        for (int p = from; p < placementCount[k]; p++) {
+            int entry = placements[k][p];
+            int start = entry >>> 1;
+            int step = (entry & 1) != 0 ? cols : 1;
+            if (overlaps(start, step, len)) continue;
+            mark(start, step, len, true);
+            chosen[i] = p;
+            boolean finished = enumerate(i + 1, ships, covered + placementHits[k][p], openHits, state);
+            mark(start, step, len, false);
+            if (!finished) return false;
+        }
+        return true;
+    }
+
+    private boolean overlaps(int start, int step, int len) {
+        for (int i = 0, y = start; i < len; i++, y += step) {
+            if (occupied[y]) return true;
+        }
+        return false;
+    }
+
+    private void mark(int start, int step, int len, boolean value) {
+        for (int i = 0, y = start; i < len; i++, y += step) occupied[y] = value;
+    }
+
+    private void countLayout(int ships, byte[] state) {
+        for (int i = 0; i < ships; i++) {
+            int k = shipLength[i];
+            int entry = placements[k][chosen[i]];
+            int step = (entry & 1) != 0 ? cols : 1;
+            for (int j = 0, y = entry >>> 1; j < lengths[k]; j++, y += step) {
+                if (state[y] == ProbabilityDensityStrategy.UNKNOWN) weight[y]++;
+            }
+        }
+    }
+
+    // Hash of everything the answer depends on: the board size, which cells are unknown, which are open hits, and the
+    // ships afloat. Misses and sunk ships are both just cells no ship can use, so they hash alike.
+    private long positionKey(byte[] state, int[] remaining) {
+        long h = mix((long) rows << 32 | cols);
+        for (int k = 0; k < lengths.length; k++) h = mix(h ^ ((long) lengths[k] << 32 | remaining[k]));
+        for (int base = 0; base < state.length; base += 64) {
+            long unknown = 0;
+            long hits = 0;
+            for (int i = 0, end = Math.min(64, state.length - base); i < end; i++) {
+                byte s = state[base + i];
+                if (s == ProbabilityDensityStrategy.UNKNOWN) unknown |= 1L << i;
+                else if (s == ProbabilityDensityStrategy.HIT) hits |= 1L << i;
+            }
+            h = mix(h ^ unknown);
+            h = mix(h ^ hits);
+        }
+        return h;
+    }
+
+    // The SplitMix64 finaliser: every input bit affects every output bit
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,191 @@
+package com.battleship;
+
+// This class FleetGenerator places a fleet at random without building and discarding Ship objects. Each ship is drawn
+// uniformly from its legal positions given the cells already taken, which is the same distribution the old "pick a
+// spot, retry if it doesn't fit" loops produced. A handful of direct draws are checked against the occupancy first,
+// since on a roomy board one of them almost always fits; if they all collide the generator counts every legal position
+// in one scan and picks one, so a crowded board costs one pass instead of an open-ended retry loop. On a board so
+// crowded that the ships placed first can leave no room for a later one, the fleet is lifted and drawn again from the
+// start, up to FLEET_ATTEMPTS times; the occupancy is left empty however a call ends, so a failure doesn't poison the
+// next one.
+// Given the same SplittableRandom seed it produces the same layouts, so fleets are reproducible.
+//
+// A layout is an int[] with one entry per ship in fleet order: start cell * 2, plus 1 if the ship runs down instead of
+// across. Occupancy and scratch buffers are reused between calls, so generating layouts allocates nothing.
+// An instance is not thread-safe; give each thread its own.
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class FleetGenerator {
+    private static final int DIRECT_DRAWS = 8;
+    private static final int FLEET_ATTEMPTS = 1000;
+
+    private final int rows;
+    private final int cols;
+    private final int[] fleet;
+    private final boolean[] taken;  // Cells already holding a ship
+    private final int[] columnRun;  // Scratch for the counting scan
+    private final CellSet boardCells;
+    private final int[] layout;     // Scratch layout for placeFleet
+
+    public FleetGenerator(GameConfig config) {
+        this.rows = config.rows();
+        this.cols = config.cols();
+        this.fleet = config.fleet();
+        this.taken = new boolean[config.cells()];
+        this.columnRun = new int[cols];
+        this.boardCells = new CellSet(config.cells());
+        this.layout = new int[fleet.length];
+    }
+
+    // Number of ships in each layout
+    public int fleetSize() {
+        return fleet.length;
+    }
+
+    // Fill layout (length fleetSize()) with a random fleet on an empty board
+    public void generate(int[] layout, SplittableRandom random) {
+        fill(layout, 0, random);
+        clear(layout, 0, fleet.length);
+    }
+
+    // Generate count fleets back to back into layouts, which must hold count * fleetSize() entries
+    public void generateMany(int[] layouts, int count, SplittableRandom random) {
+        for (int i = 0; i < count; i++) {
+            fill(layouts, i * fleet.length, random);
+            clear(layouts, i * fleet.length, fleet.length);
+        }
+    }
+
+    // Place a random fleet on the board around any ships it already holds
+    public void placeFleet(Board board, SplittableRandom random) {
+        board.copyOccupiedInto(boardCells);
+        for (int cell = 0; cell < taken.length; cell++) taken[cell] = boardCells.contains(cell);
+        try {
+            fill(layout, 0, random);
+        } finally {
+            Arrays.fill(taken, false);
+        }
+        for (int i = 0; i < fleet.length; i++) {
+            if (!board.placeShip(toShip(layout[i], fleet[i]))) {
+                throw new IllegalStateException("Generated placement was rejected by the board");
+            }
+        }
+    }
+
+    // Build the Ship a layout entry describes
+    public Ship toShip(int entry, int length) {
+        int start = startCell(entry);
+        int step = isVertical(entry) ? cols : 1;
+        List<Coordinate> coords = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            int cell = start + i * step;
+            coords.add(Coordinate.ofCell(cell, cols));
+        }
+        return new Ship(coords);
+    }
+
+    // The layout entries of the fleet on a board, into layout; ships must be straight and listed in fleet order
+    public static void layoutOf(Board board, int[] layout) {
+        List<Ship> placed = board.getShips();
+        int cols = board.getCols();
+        for (int i = 0; i < layout.length; i++) {
+            List<Coordinate> coords = placed.get(i).getCoordinates();
+            Coordinate first = coords.get(0);
+            boolean vertical = coords.size() > 1 && coords.get(1).row != first.row;
+            layout[i] = (first.row * cols + first.col) << 1 | (vertical ? 1 : 0);
+        }
+    }
+
+    public static int startCell(int entry) {
+        return entry >>> 1;
+    }
+
+    public static boolean isVertical(int entry) {
+        return (entry & 1) != 0;
+    }
+
+    // Place the whole fleet, writing entries to out[offset..]; a dead end lifts the ships placed so far and starts over
+    private void fill(int[] out, int offset, SplittableRandom random) {
+        for (int attempt = 0; attempt < FLEET_ATTEMPTS; attempt++) {
+            int placed = place(out, offset, random);
+            if (placed == fleet.length) return;
+            clear(out, offset, placed);
+        }
+        throw new IllegalStateException("No room for the fleet after " + FLEET_ATTEMPTS + " attempts");
+    }
+
+    // Place the ships in turn, marking their cells taken; the number placed, short of the fleet if one had no room
+    private int place(int[] out, int offset, SplittableRandom random) {
+        for (int i = 0; i < fleet.length; i++) {
+            int length = fleet[i];
+            int entry = drawDirect(length, random);
+            if (entry < 0) entry = drawCounted(length, random);
+            if (entry < 0) return i;
+            int start = startCell(entry);
+            int step = isVertical(entry) ? cols : 1;
+            for (int j = 0; j < length; j++) taken[start + j * step] = true;
+            out[offset + i] = entry;
+        }
+        return fleet.length;
+    }
+
+    // Free the cells of the first ships of the layout at out[offset..], so the next fleet starts from an empty board
+    // without a full sweep
+    private void clear(int[] out, int offset, int ships) {
+        for (int i = 0; i < ships; i++) {
+            int start = startCell(out[offset + i]);
+            int step = isVertical(out[offset + i]) ? cols : 1;
+            for (int j = 0; j < fleet[i]; j++) taken[start + j * step] = false;
+        }
+    }
+
+    // Try a few uniformly drawn positions; -1 if none of them fit
+    private int drawDirect(int length, SplittableRandom random) {
+        for (int attempt = 0; attempt < DIRECT_DRAWS; attempt++) {
+            int row = random.nextInt(rows);
+            int col = random.nextInt(cols);
+            boolean vertical = random.nextBoolean();
+            if (vertical ? row + length > rows : col + length > cols) continue;
+            int start = row * cols + col;
+            int step = vertical ? cols : 1;
+            boolean free = true;
+            for (int j = 0; j < length && free; j++) free = !taken[start + j * step];
+            if (free) return (start << 1) | (vertical && length > 1 ? 1 : 0);
+        }
+        return -1;
+    }
+
+    // Count every legal position, pick one uniformly and find it with a second scan; -1 if there is none
+    private int drawCounted(int length, SplittableRandom random) {
+        int count = scan(length, -1);
+        if (count == 0) return -1;
+        return scan(length, random.nextInt(count));
+    }
+
+    // One pass over the board tracking the run of free cells ending at each cell along its row and down its column.
+    // With target < 0 returns the number of legal positions; otherwise returns the entry of the target-th one.
+    private int scan(int length, int target) {
+        int count = 0;
+        Arrays.fill(columnRun, 0);
+        for (int r = 0, cell = 0; r < rows; r++) {
+            int rowRun = 0;
+            for (int c = 0; c < cols; c++, cell++) {
+                if (taken[cell]) {
+                    rowRun = 0;
+                    columnRun[c] = 0;
+                    continue;
+                }
+                if (++rowRun >= length && count++ == target) return (cell - length + 1) << 1;
+                // A single cell is the same placement both ways, so it is only counted across
+                if (++columnRun[c] >= length && length > 1 && count++ == target) {
+                    return ((cell - (length - 1) * cols) << 1) | 1;
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,112 @@
+package com.battleship;
+
+// This class GameConfig describes the board dimensions and fleet a game is played with. The classic game is STANDARD:
+// a 10x10 board with ships of length 5, 4, 3, 3 and 2. A config is written as "ROWSxCOLS:len,len,..." (for example
+// "10x10:5,4,3,3,2"), which is how it is passed on the command line and sent to the other player during the handshake.
+
+import java.util.Arrays;
+
+public final class GameConfig {
+    public static final GameConfig STANDARD = new GameConfig(10, 10, new int[] {5, 4, 3, 3, 2});
+
+    private final int rows;
+    private final int cols;
+    private final int[] fleet;
+
+    public GameConfig(int rows, int cols, int[] fleet) {
+        if (rows < 1 || cols < 1) throw new IllegalArgumentException("Board must be at least 1x1: " + rows + "x" + cols);
+        if ((long) rows * cols > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("Board too large: " + rows + "x" + cols);
+        }
+        if (fleet.length == 0) throw new IllegalArgumentException("Fleet must have at least one ship");
+        long total = 0;
+        for (int length : fleet) {
+            if (length < 1 || length > Math.max(rows, cols)) {
+                throw new IllegalArgumentException("Ship of length " + length + " doesn't fit a " + rows + "x" + cols + " board");
+            }
+            total += length;
+        }
+        if (total > (long) rows * cols) throw new IllegalArgumentException("Fleet covers more cells than the board has");
+        this.rows = rows;
+        this.cols = cols;
+        this.fleet = fleet.clone();
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int cols() {
+        return cols;
+    }
+
+    public int cells() {
+        return rows * cols;
+    }
+
+    // Ship lengths in placement order; a copy, so callers may keep it
+    public int[] fleet() {
+        return fleet.clone();
+    }
+
+    // Parse "ROWSxCOLS" or "ROWSxCOLS:len,len,..."; without a fleet the standard one is used
+    public static GameConfig parse(String text) {
+        String s = text.trim();
+        int colon = s.indexOf(':');
+        String dims = colon < 0 ? s : s.substring(0, colon);
+        int x = dims.toLowerCase().indexOf('x');
+        if (x < 0) throw new IllegalArgumentException("Expected ROWSxCOLS, got: " + text);
+        int rows = Integer.parseInt(dims.substring(0, x).trim());
+        int cols = Integer.parseInt(dims.substring(x + 1).trim());
+        int[] fleet = colon < 0 ? STANDARD.fleet : parseFleet(s.substring(colon + 1));
+        return new GameConfig(rows, cols, fleet);
+    }
+
+    // Build a config from command-line arguments: --board ROWSxCOLS and --fleet len,len,... (both optional)
+    public static GameConfig fromArgs(String[] args) {
+        int rows = STANDARD.rows;
+        int cols = STANDARD.cols;
+        int[] fleet = STANDARD.fleet;
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (args[i].equals("--board")) {
+                GameConfig board = parse(args[++i]);
+                rows = board.rows;
+                cols = board.cols;
+            } else if (args[i].equals("--fleet")) {
+                fleet = parseFleet(args[++i]);
+            }
+        }
+        return new GameConfig(rows, cols, fleet);
+    }
+
+    private static int[] parseFleet(String text) {
+        String[] parts = text.split(",");
+        int[] fleet = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) fleet[i] = Integer.parseInt(parts[i].trim());
+        return fleet;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof GameConfig)) return false;
+        GameConfig other = (GameConfig) obj;
+        return rows == other.rows && cols == other.cols && Arrays.equals(fleet, other.fleet);
+    }
+
+    @Override
+    public int hashCode() {
+        return (rows * 31 + cols) * 31 + Arrays.hashCode(fleet);
+    }
+
+    // The same "ROWSxCOLS:len,len,..." form parse() reads
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder().append(rows).append('x').append(cols).append(':');
+        for (int i = 0; i < fleet.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(fleet[i]);
+        }
+        return sb.toString();
+    }
+}
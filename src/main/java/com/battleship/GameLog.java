@@ -0,0 +1,301 @@
+package com.battleship;
+
+// This class GameLog records games as an append-only file of fixed-width 16 byte events, written through memory-mapped
+// regions of the file. Appending an event is a handful of stores into mapped memory, with no system call and no
+// allocation, so it costs next to nothing on the turn path; the OS writes the pages back in the background.
+//
+// File layout (little-endian): a 32 byte header, then events.
+//   header  int magic "BSEL", int version, long end (bytes in use), int games, 12 bytes unused
+//   event   byte type, byte player, byte result, byte unused, int game, int turn, int cell
+// A game is START (turn = cols, cell = rows), one PLACE per ship cell of each player's fleet (player owns the board,
+// turn = ship index), one ATTACK per shot (player fired, result uses BinaryWire's codes), then END (player won,
+// turn = attacks played). replay() rebuilds the boards at any turn and scan() streams every event for bulk analysis.
+// Every writer logs one game at a time, so events are in game order: replay() finds a game's START with a binary search
+// over the fixed-width events and reads that game's events only, however long the log has grown.
+//
+// A log is written by one thread. Run with: mvn exec:java -Dexec.mainClass=com.battleship.GameLog -Dexec.args="..."
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public final class GameLog implements Closeable {
+    public static final byte START = 1;
+    public static final byte PLACE = 2;
+    public static final byte ATTACK = 3;
+    public static final byte END = 4;
+
+    static final int EVENT_SIZE = 16;
+    static final int HEADER_SIZE = 32;
+    private static final int MAGIC = 0x4C455342; // "BSEL" read little-endian
+    private static final int VERSION = 1;
+    private static final int REGION_SIZE = 1 << 22; // Bytes mapped at a time; a multiple of EVENT_SIZE
+    private static final int REPLAY_CHUNK = 1 << 12; // Bytes replay() reads at a time; a multiple of EVENT_SIZE
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private MappedByteBuffer region;  // The mapping appends currently go to
+    private long regionStart;         // File offset of region's first byte
+    private long end;                 // File offset of the next event
+    private int games;
+
+    private GameLog(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        if (header.getInt(0) == 0) {
+            header.putInt(0, MAGIC).putInt(4, VERSION).putLong(8, HEADER_SIZE).putInt(16, 0);
+        } else if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("Not a version " + VERSION + " game log");
+        }
+        this.end = header.getLong(8);
+        this.games = header.getInt(16);
+        mapRegion(end);
+    }
+
+    // Open a log for appending, creating it if it doesn't exist
+    public static GameLog open(Path path) throws IOException {
+        return new GameLog(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE));
+    }
+
+    // Open the log named by -Dbattleship.log, or null if logging is off
+    public static GameLog fromSystemProperty() throws IOException {
+        String path = System.getProperty("battleship.log");
+        return path == null || path.isEmpty() ? null : open(Paths.get(path));
+    }
+
+    // Record the start of a game and return its id
+    public int startGame(GameConfig config) {
+        int game = games++;
+        append(START, 0, 0, game, config.cols(), config.rows());
+        header.putInt(16, games);
+        return game;
+    }
+
+    // Record every ship cell of the fleet on the board that player owns
+    public void placement(int game, int player, Board board) {
+        List<Ship> ships = board.getShips();
+        for (int i = 0; i < ships.size(); i++) {
+            for (Coordinate c : ships.get(i).getCoordinates()) {
+                append(PLACE, player, 0, game, i, c.row * board.getCols() + c.col);
+            }
+        }
+    }
+
+    // Record a shot by player at cell and what it did
+    public void attack(int game, int player, int turn, int cell, String result) {
+        append(ATTACK, player, BinaryWire.encodeResult(result), game, turn, cell);
+    }
+
+    public void endGame(int game, int winner, int turns) {
+        append(END, winner, 0, game, turns, 0);
+    }
+
+    // Number of games started in this log, across every session that appended to it
+    public int games() {
+        return games;
+    }
+
+    // Number of events in the log
+    public long events() {
+        return (end - HEADER_SIZE) / EVENT_SIZE;
+    }
+
+    // Flush the mapped pages to disk and trim the file to the events written
+    @Override
+    public void close() throws IOException {
+        region.force();
+        header.force();
+        region = null;
+        channel.truncate(end);
+        channel.close();
+    }
+
+    private void append(byte type, int player, int result, int game, int turn, int cell) {
+        if (end - regionStart == REGION_SIZE) {
+            try {
+                mapRegion(end);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not extend the game log", e);
+            }
+        }
+        int at = (int) (end - regionStart);
+        region.put(at, type).put(at + 1, (byte) player).put(at + 2, (byte) result).put(at + 3, (byte) 0);
+        region.putInt(at + 4, game).putInt(at + 8, turn).putInt(at + 12, cell);
+        end += EVENT_SIZE;
+        header.putLong(8, end); // Kept current, so a reopen or a scan knows where the events stop
+    }
+
+    // Map the region holding the given offset; mapping past the end of the file grows it. The old region is left for
+    // the OS to write back, so switching regions never waits on the disk.
+    private void mapRegion(long offset) throws IOException {
+        regionStart = offset - offset % REGION_SIZE;
+        region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, REGION_SIZE);
+        region.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // Receives events from scan(); result is a BinaryWire result code for ATTACK events and 0 otherwise
+    public interface Visitor {
+        void event(byte type, int player, int result, int game, int turn, int cell);
+    }
+
+    // Stream every event in the log to the visitor, in order, and return how many there were
+    public static long scan(Path path, Visitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            head.order(ByteOrder.LITTLE_ENDIAN);
+            if (head.getInt(0) != MAGIC) throw new IOException("Not a game log: " + path);
+            long end = head.getLong(8);
+            long count = 0;
+            for (long start = 0; start < end; start += REGION_SIZE) {
+                int length = (int) Math.min(REGION_SIZE, end - start);
+                MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+                buf.order(ByteOrder.LITTLE_ENDIAN);
+                for (int at = start == 0 ? HEADER_SIZE : 0; at < length; at += EVENT_SIZE) {
+                    visitor.event(buf.get(at), buf.get(at + 1), buf.get(at + 2), buf.getInt(at + 4),
+                            buf.getInt(at + 8), buf.getInt(at + 12));
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    // Rebuild a game's two boards as they stood after the given number of attacks; boards[p] is the board player p owns.
+    // Reads the events the binary search probes and then the game's own, up to its END or the last attack wanted.
+    public static Board[] replay(Path path, int game, int attacks) throws IOException {
+        Board[] boards = new Board[2];
+        List<List<List<Coordinate>>> fleets = List.of(new ArrayList<>(), new ArrayList<>());
+        int applied = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate(REPLAY_CHUNK).order(ByteOrder.LITTLE_ENDIAN);
+            read(channel, buf, 0, HEADER_SIZE);
+            if (buf.getInt(0) != MAGIC) throw new IOException("Not a game log: " + path);
+            long events = (buf.getLong(8) - HEADER_SIZE) / EVENT_SIZE;
+            // The first event of this game or a later one
+            long first = 0;
+            long last = events;
+            while (first < last) {
+                long mid = (first + last) >>> 1;
+                read(channel, buf, HEADER_SIZE + mid * EVENT_SIZE, EVENT_SIZE);
+                if (buf.getInt(4) < game) first = mid + 1;
+                else last = mid;
+            }
+            events:
+            for (long next = first; next < events; ) {
+                int count = (int) Math.min(REPLAY_CHUNK / EVENT_SIZE, events - next);
+                read(channel, buf, HEADER_SIZE + next * EVENT_SIZE, count * EVENT_SIZE);
+                next += count;
+                for (int at = 0; at < count * EVENT_SIZE; at += EVENT_SIZE) {
+                    byte type = buf.get(at);
+                    int player = buf.get(at + 1);
+                    int turn = buf.getInt(at + 8);
+                    int cell = buf.getInt(at + 12);
+                    if (buf.getInt(at + 4) != game || type == END) break events;
+                    if (type == START) {
+                        boards[0] = new Board(cell, turn);
+                        boards[1] = new Board(cell, turn);
+                    } else if (type == PLACE) {
+                        List<List<Coordinate>> fleet = fleets.get(player);
+                        while (fleet.size() <= turn) fleet.add(new ArrayList<>());
+                        fleet.get(turn).add(Coordinate.ofCell(cell, boards[player].getCols()));
+                    } else if (type == ATTACK) {
+                        if (applied == attacks) break events;
+                        if (applied++ == 0) placeFleets(boards, fleets);
+                        Board target = boards[1 - player];
+                        target.attack(cell / target.getCols(), cell % target.getCols());
+                    }
+                }
+            }
+        }
+        if (boards[0] == null) throw new IllegalArgumentException("No game " + game + " in " + path);
+        if (applied == 0) placeFleets(boards, fleets);
+        return boards;
+    }
+
+    // Read length bytes at position into the start of buf
+    private static void read(FileChannel channel, ByteBuffer buf, long position, int length) throws IOException {
+        buf.clear().limit(length);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, position + buf.position()) < 0) throw new EOFException("Game log ends early");
+        }
+    }
+
+    private static void placeFleets(Board[] boards, List<List<List<Coordinate>>> fleets) {
+        for (int p = 0; p < 2; p++) {
+            for (List<Coordinate> ship : fleets.get(p)) boards[p].placeShip(new Ship(ship));
+        }
+    }
+
+    // Commands:
+    //   simulate <file> <games> [seed]   append games played by HuntTarget against Random
+    //   stats <file>                     scan the whole log and summarize it
+    //   replay <file> <game> <attacks>   print both boards of a game after that many attacks
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: simulate <file> <games> [seed] | stats <file> | replay <file> <game> <attacks>");
+            return;
+        }
+        Path path = Paths.get(args[1]);
+        switch (args[0]) {
+            case "simulate": {
+                int count = Integer.parseInt(args[2]);
+                SplittableRandom random = new SplittableRandom(args.length > 3 ? Long.parseLong(args[3]) : 42L);
+                SimulatedGame game = new SimulatedGame(GameConfig.STANDARD);
+                TargetingStrategy first = new HuntTargetStrategy();
+                TargetingStrategy second = new RandomStrategy();
+                long start = System.nanoTime();
+                try (GameLog log = open(path)) {
+                    game.setLog(log);
+                    for (int i = 0; i < count; i++) game.play(first, second, random);
+                    System.out.printf("Logged %,d games (%,d events in the file) in %.2f s%n", count, log.events(),
+                            (System.nanoTime() - start) / 1e9);
+                }
+                break;
+            }
+            case "stats": {
+                long[] totals = new long[6]; // games, attacks, hits (incl. sunk), sunk, first player wins, attacks in ended games
+                long start = System.nanoTime();
+                long events = scan(path, (type, player, result, game, turn, cell) -> {
+                    if (type == START) totals[0]++;
+                    else if (type == ATTACK) {
+                        totals[1]++;
+                        if (result == BinaryWire.HIT_CODE || result == BinaryWire.SUNK_CODE) totals[2]++;
+                        if (result == BinaryWire.SUNK_CODE) totals[3]++;
+                    } else if (type == END) {
+                        if (player == 0) totals[4]++;
+                        totals[5] += turn;
+                    }
+                });
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("%,d events, %,d games, %,d attacks (%.1f%% hits, %,d ships sunk)%n", events, totals[0],
+                        totals[1], 100.0 * totals[2] / Math.max(1, totals[1]), totals[3]);
+                System.out.printf("First player won %.1f%%, %.1f attacks per game%n",
+                        100.0 * totals[4] / Math.max(1, totals[0]), (double) totals[5] / Math.max(1, totals[0]));
+                System.out.printf("Scanned in %.3f s (%,.0f events/s)%n", seconds, events / seconds);
+                break;
+            }
+            case "replay": {
+                Board[] boards = replay(path, Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+                for (int p = 0; p < 2; p++) {
+                    System.out.println("Player " + (p + 1) + "'s board:");
+                    boards[p].printBoard(true);
+                }
+                break;
+            }
+            default:
+                System.out.println("Unknown command: " + args[0]);
+        }
+    }
+}
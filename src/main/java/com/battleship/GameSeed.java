@@ -0,0 +1,37 @@
+package com.battleship;
+
+// This class GameSeed is the 64-bit seed that, together with the attacks the players make, fully determines a game.
+// Every random choice a game makes (so far, where each fleet goes) is drawn from one SplittableRandom created from the
+// seed, so running again with --seed <n> and the same attacks plays the same game, e.g. to replay a slow or buggy one
+// under a profiler. Without --seed a fresh seed is drawn, and it is printed either way.
+
+import java.util.SplittableRandom;
+
+final class GameSeed {
+    private GameSeed() {
+    }
+
+    // The seed given with --seed <n> (decimal, or hex with a 0x prefix), or a fresh one
+    static long fromArgs(String[] args) {
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (!args[i].equals("--seed")) continue;
+            String text = args[i + 1].trim();
+            try {
+                return text.startsWith("0x") ? Long.parseUnsignedLong(text.substring(2), 16) : Long.parseLong(text);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad seed: " + text);
+            }
+        }
+        return fresh();
+    }
+
+    // A seed no earlier game is likely to have used
+    static long fresh() {
+        return new SplittableRandom().nextLong();
+    }
+
+    // How to tell the user which seed this game runs on
+    static String describe(long seed) {
+        return "Seed " + seed + " (replay this game with --seed " + seed + ")";
+    }
+}
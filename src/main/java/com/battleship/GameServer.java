@@ -0,0 +1,262 @@
+package com.battleship;
+
+// This class GameServer is the multi-game alternative to hosting a single match from StartGame. It accepts connections
+// continuously, queues players in a lobby, pairs them two at a time and runs every pairing as its own MatchSession.
+// Sessions run on virtual threads when the JVM has them (Java 21+) and on a cached pool of platform threads otherwise.
+// Every few seconds the server reports matches per second and the peak number of concurrent sessions.
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class GameServer {
+    private final int port;
+    private final int reportIntervalSeconds;
+    // With -Dbattleship.authoritative=true every session also keeps a MatchEngine: players declare their fleets to the
+    // server, which rejects illegal moves and works out every result itself instead of trusting the defender's answer
+    private final boolean authoritative = Boolean.getBoolean("battleship.authoritative");
+    // How long a session's player may be quiet before the session parks (see park()); 0 never parks
+    private final int parkMillis = Integer.getInteger("battleship.parkMillis", 200);
+    // Largest board, in cells, an authoritative session referees; its MatchEngine is sized by the board
+    private final int maxCells = Integer.getInteger("battleship.maxCells", 1 << 16);
+    private final BlockingQueue<Socket> lobby = new LinkedBlockingQueue<>(); // Players waiting for an opponent
+    private final ExecutorService sessions = newSessionExecutor();
+    private final ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(daemon("server-stats"));
+    private final Selector parking;                                    // Watches the sockets parked sessions wait on
+    private final Queue<MatchSession> toPark = new ConcurrentLinkedQueue<>(); // Sessions waiting to be registered
+
+    private final AtomicLong matchesStarted = new AtomicLong();
+    private final AtomicLong matchesCompleted = new AtomicLong();
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private final AtomicInteger peakSessions = new AtomicInteger();
+    private final AtomicLong violations = new AtomicLong(); // Matches ended over a bad move or a malformed message
+    private final AtomicInteger parkedSessions = new AtomicInteger();
+    private long lastReportedMatches;
+    private long lastReportNanos;
+
+    private volatile ServerSocketChannel serverSocket;
+    private volatile boolean running = true;
+
+    public GameServer(int port, int reportIntervalSeconds) throws IOException {
+        this.port = port;
+        this.reportIntervalSeconds = reportIntervalSeconds;
+        this.parking = Selector.open();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Metrics.start();
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        new GameServer(port, 5).run();
+    }
+
+    // Accept players until close() is called. Blocks the calling thread.
+    public void run() throws IOException {
+        // Accepted through a channel, so that a parked session's socket can be watched by the selector
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(port), 1024);
+            serverSocket = server;
+            System.out.println("Game server listening on port " + server.socket().getLocalPort() + "...");
+
+            Thread matchmaker = daemon("matchmaker").newThread(this::matchmake);
+            matchmaker.start();
+            daemon("parking").newThread(this::watchParked).start();
+            lastReportNanos = System.nanoTime();
+            if (reportIntervalSeconds > 0) {
+                reporter.scheduleAtFixedRate(this::report, reportIntervalSeconds, reportIntervalSeconds, TimeUnit.SECONDS);
+            }
+
+            while (running) {
+                Socket socket;
+                try {
+                    socket = server.accept().socket();
+                } catch (IOException e) {
+                    if (!running) break; // close() shut the server socket
+                    throw e;
+                }
+                socket.setTcpNoDelay(true); // Moves are tiny; don't let Nagle hold them back
+                lobby.add(socket);
+            }
+        } finally {
+            running = false;
+            parking.wakeup();
+            reporter.shutdownNow();
+            sessions.shutdownNow();
+        }
+    }
+
+    // Stop accepting players and tear down running sessions
+    public void close() throws IOException {
+        running = false;
+        ServerSocketChannel server = serverSocket;
+        if (server != null) server.close();
+    }
+
+    // The port actually bound, useful when constructed with port 0; -1 until run() has bound it
+    public int getLocalPort() {
+        ServerSocketChannel server = serverSocket;
+        return server == null ? -1 : server.socket().getLocalPort();
+    }
+
+    public long getMatchesStarted() {
+        return matchesStarted.get();
+    }
+
+    public long getMatchesCompleted() {
+        return matchesCompleted.get();
+    }
+
+    public int getActiveSessions() {
+        return activeSessions.get();
+    }
+
+    public int getPeakSessions() {
+        return peakSessions.get();
+    }
+
+    public long getViolations() {
+        return violations.get();
+    }
+
+    // Sessions whose players are all quiet, holding no thread until one of them sends something
+    public int getParkedSessions() {
+        return parkedSessions.get();
+    }
+
+    int parkMillis() {
+        return parkMillis;
+    }
+
+    int maxCells() {
+        return maxCells;
+    }
+
+    // Pair players in arrival order and hand each pair to its own session
+    private void matchmake() {
+        try {
+            while (running) {
+                Socket host = lobby.take();
+                Socket client = lobby.take();
+                matchesStarted.incrementAndGet();
+                peakSessions.accumulateAndGet(activeSessions.incrementAndGet(), Math::max);
+                try {
+                    sessions.execute(new MatchSession(this, host, client, authoritative));
+                } catch (RejectedExecutionException e) {
+                    sessionEnded(false); // Server is shutting down
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Called by a MatchSession when its match finishes or a player drops
+    void sessionEnded(boolean completed) {
+        activeSessions.decrementAndGet();
+        if (completed) matchesCompleted.incrementAndGet();
+    }
+
+    // Called by a MatchSession, on its way out of run(), whose player has gone quiet with its wires parked: their
+    // buffers are back in the BufferPool and its thread is free, and the selector thread watches the socket it waits on
+    // until the player sends something. A parked match is its MatchSession's few fields and two sockets.
+    void park(MatchSession session) {
+        parkedSessions.incrementAndGet();
+        toPark.add(session);
+        parking.wakeup();
+    }
+
+    // The selector thread: register newly parked sessions and give each back to the executor once the socket it waits
+    // on is readable (a message, or the player hanging up)
+    private void watchParked() {
+        List<SelectionKey> ready = new ArrayList<>();
+        try {
+            while (running) {
+                parking.select();
+                MatchSession session;
+                while ((session = toPark.poll()) != null) {
+                    SocketChannel channel = session.waitingOn();
+                    try {
+                        channel.configureBlocking(false);
+                        channel.register(parking, SelectionKey.OP_READ, session);
+                    } catch (IOException e) {
+                        resume(session, channel); // Its next read fails and the session ends itself
+                    }
+                }
+                ready.addAll(parking.selectedKeys());
+                parking.selectedKeys().clear();
+                if (ready.isEmpty()) continue;
+                for (SelectionKey key : ready) key.cancel();
+                parking.selectNow(); // Deregisters the cancelled keys, which a channel must be rid of to block again
+                for (SelectionKey key : ready) resume((MatchSession) key.attachment(), (SocketChannel) key.channel());
+                ready.clear();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            // Shutting down
+        }
+        // The server is closing: end the matches still parked
+        try {
+            for (SelectionKey key : parking.keys()) ((MatchSession) key.attachment()).abandon();
+            MatchSession session;
+            while ((session = toPark.poll()) != null) session.abandon();
+            parking.close();
+        } catch (IOException | ClosedSelectorException e) {
+            // Nothing more to release
+        }
+    }
+
+    private void resume(MatchSession session, SocketChannel channel) {
+        parkedSessions.decrementAndGet();
+        try {
+            channel.configureBlocking(true);
+            sessions.execute(session);
+        } catch (IOException | RejectedExecutionException e) {
+            session.abandon();
+        }
+    }
+
+    // Called by a MatchSession that ended a match because a player broke the rules or sent something unreadable
+    void violation() {
+        violations.incrementAndGet();
+    }
+
+    private synchronized void report() {
+        long now = System.nanoTime();
+        long matches = matchesCompleted.get();
+        double seconds = (now - lastReportNanos) / 1e9;
+        double rate = (matches - lastReportedMatches) / seconds;
+        lastReportedMatches = matches;
+        lastReportNanos = now;
+        System.out.printf("[server] %.1f matches/s, %d completed, %d active (%d parked), %d peak concurrent, "
+                        + "%d in lobby, %d violations%n",
+                rate, matches, activeSessions.get(), parkedSessions.get(), peakSessions.get(), lobby.size(),
+                violations.get());
+    }
+
+    // Virtual threads are only in the API from Java 21, so look the factory up reflectively and fall back on older JVMs
+    static ExecutorService newSessionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(daemon("match-session"));
+        }
+    }
+
+    static ThreadFactory daemon(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, name + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,182 @@
+package com.battleship;
+
+// This class GameSnapshot is everything one side of a NetworkedGame needs to carry on a match: the session it belongs
+// to, the agreed config and wire options, whose move it is, where our fleet sits and every shot taken in either
+// direction. NetworkedGame keeps one up to date as it plays and encodes it after every turn, so a dropped connection,
+// or a restarted process with -Dbattleship.snapshot=<file>, can pick the match up where it stopped.
+//
+// Encoding (little-endian; varints hold 7 bits per byte, low bits first):
+//   byte    version
+//   long    session token
+//   byte    flags: bit 0 we host, bit 1 binary wire, bit 2 heartbeats, bits 4-5 phase
+//   varint  rows, cols, ship count, then each ship's length
+//   varint  turns played, pending cell + 1, result code of the last answer we sent (0 if none)
+//   varint  one layout entry per ship (start cell << 1 | vertical), as FleetGenerator writes them
+//   bits    shots taken, shots fired and hits scored: one bit per cell each, low cell first, written as the CellSet's
+//           64-bit words with the last one cut down to the bytes the board needs
+// A standard 10x10 game is under 70 bytes, and encoding allocates nothing.
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+final class GameSnapshot {
+    // Phases: what this side was doing when the snapshot was taken
+    static final int MY_TURN = 0;
+    static final int AWAITING_RESULT = 1;
+    static final int OPPONENT_TURN = 2;
+
+    private static final int VERSION = 1;
+
+    final GameConfig config;
+    private final int[] fleet;
+    long session;             // Token the host handed out in the handshake; 0 if the game can't be resumed
+    boolean host;
+    boolean binary;           // Agreed wire protocol
+    boolean heartbeat;
+    int phase = MY_TURN;
+    int salvo = 1;            // Shots per turn; not encoded, since salvo games offer no session and can't be resumed
+    int turns;                // Shots resolved so far, ours and the opponent's
+    int pending = -1;         // Cell of our shot waiting for its result, -1 if none
+    byte lastAnswer;          // BinaryWire code of the last result we sent, 0 before the first
+    final int[] ships;        // Layout entry of each ship of our fleet
+    final CellSet shotsTaken; // Opponent's shots at our board
+    final CellSet shotsFired; // Our shots at theirs, which is also the game's attack history
+    final CellSet hitsScored; // The shots fired that hit
+
+    GameSnapshot(GameConfig config) {
+        this.config = config;
+        this.fleet = config.fleet();
+        this.ships = new int[fleet.length];
+        this.shotsTaken = new CellSet(config.cells());
+        this.shotsFired = new CellSet(config.cells());
+        this.hitsScored = new CellSet(config.cells());
+    }
+
+    // Record where the fleet on our board sits; ships must be straight and listed in fleet order
+    void recordFleet(Board board) {
+        FleetGenerator.layoutOf(board, ships);
+    }
+
+    // Our board as it stands: the fleet with every shot the opponent has taken at it
+    Board restoreBoard() {
+        Board board = new Board(config.rows(), config.cols());
+        FleetGenerator generator = new FleetGenerator(config);
+        for (int i = 0; i < ships.length; i++) board.placeShip(generator.toShip(ships[i], fleet[i]));
+        int cols = config.cols();
+        for (int cell = 0; cell < config.cells(); cell++) {
+            if (shotsTaken.contains(cell)) board.attack(cell / cols, cell % cols);
+        }
+        return board;
+    }
+
+    // The board we track the opponent on, with every shot we have fired marked a hit or a miss as we were told
+    Board restoreOpponentBoard() {
+        Board board = new Board(config.rows(), config.cols());
+        int cols = config.cols();
+        for (int cell = 0; cell < config.cells(); cell++) {
+            if (shotsFired.contains(cell)) board.recordShot(Coordinate.ofCell(cell, cols), hitsScored.contains(cell));
+        }
+        return board;
+    }
+
+    // Most bytes encode() can write for this config
+    int maxSize() {
+        int varints = 3 + 2 * ships.length + 3;
+        return 1 + 8 + 1 + 5 * varints + 3 * ((config.cells() + 7) >>> 3);
+    }
+
+    // Append the snapshot to out, which is switched to little-endian
+    void encode(ByteBuffer out) {
+        out.order(ByteOrder.LITTLE_ENDIAN);
+        out.put((byte) VERSION);
+        out.putLong(session);
+        out.put((byte) ((host ? 1 : 0) | (binary ? 2 : 0) | (heartbeat ? 4 : 0) | phase << 4));
+        putVarint(out, config.rows());
+        putVarint(out, config.cols());
+        putVarint(out, fleet.length);
+        for (int length : fleet) putVarint(out, length);
+        putVarint(out, turns);
+        putVarint(out, pending + 1);
+        putVarint(out, lastAnswer);
+        for (int entry : ships) putVarint(out, entry);
+        putBits(out, shotsTaken);
+        putBits(out, shotsFired);
+        putBits(out, hitsScored);
+    }
+
+    // Read a snapshot from in, which is switched to little-endian
+    static GameSnapshot decode(ByteBuffer in) throws IOException {
+        in.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (in.get() != VERSION) throw new IOException("Not a version " + VERSION + " game snapshot");
+            long session = in.getLong();
+            int flags = in.get();
+            int rows = getVarint(in);
+            int cols = getVarint(in);
+            int[] fleet = new int[getVarint(in)];
+            for (int i = 0; i < fleet.length; i++) fleet[i] = getVarint(in);
+            GameSnapshot snapshot = new GameSnapshot(new GameConfig(rows, cols, fleet));
+            snapshot.session = session;
+            snapshot.host = (flags & 1) != 0;
+            snapshot.binary = (flags & 2) != 0;
+            snapshot.heartbeat = (flags & 4) != 0;
+            snapshot.phase = flags >>> 4 & 3;
+            snapshot.turns = getVarint(in);
+            snapshot.pending = getVarint(in) - 1;
+            snapshot.lastAnswer = (byte) getVarint(in);
+            for (int i = 0; i < fleet.length; i++) snapshot.ships[i] = getVarint(in);
+            getBits(in, snapshot.shotsTaken);
+            getBits(in, snapshot.shotsFired);
+            getBits(in, snapshot.hitsScored);
+            return snapshot;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Corrupt game snapshot", e);
+        }
+    }
+
+    // Read the snapshot a game wrote to -Dbattleship.snapshot
+    static GameSnapshot load(Path path) throws IOException {
+        return decode(ByteBuffer.wrap(Files.readAllBytes(path)));
+    }
+
+    static void putVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static int getVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalArgumentException("Varint too long");
+    }
+
+    private static void putBits(ByteBuffer out, CellSet set) {
+        int bytes = (set.capacity() + 7) >>> 3;
+        int whole = bytes >>> 3;
+        for (int i = 0; i < whole; i++) out.putLong(set.word(i));
+        if (whole << 3 == bytes) return;
+        long last = set.word(whole);
+        for (int b = whole << 3; b < bytes; b++, last >>>= 8) out.put((byte) last);
+    }
+
+    private static void getBits(ByteBuffer in, CellSet set) {
+        int bytes = (set.capacity() + 7) >>> 3;
+        int whole = bytes >>> 3;
+        for (int i = 0; i < whole; i++) set.setWord(i, in.getLong());
+        if (whole << 3 == bytes) return;
+        long last = 0;
+        for (int b = whole << 3, shift = 0; b < bytes; b++, shift += 8) last |= (in.get() & 0xFFL) << shift;
+        set.setWord(whole, last);
+    }
+}
@@ -0,0 +1,149 @@
+package com.battleship;
+
+// This class Handshake is the exchange two peers run when the socket connects, before any move is sent. The HOST sends
+// "BATTLESHIP <TEXT|BINARY> <config>" with its protocol preference and the GameConfig it wants to play, and the CLIENT
+// answers "BATTLESHIP <protocol>" with the protocol both accept. The client always plays the host's config, so both
+// boards match. A hello without a config (from an older host) means the standard game.
+// Either line may end with "PING" to offer heartbeats; they are only used when both sides offer them. A host that can
+// take a dropped client back adds "SESSION=<token>" to its hello, and a host that wants a salvo game, with k shots
+// fired per turn, adds "SALVO=<k>". A client that can play it says "SALVO=<k>" back; without that (an older client,
+// or a relay that took the offer out) the game is the classic one.
+// After a drop the client reconnects and sends "RESUME <token> <turns>" in place of the handshake, and the host answers
+// "RESUMED <turns>" (or "REJECTED"): one round trip, after which each side knows how far the other got.
+
+import java.io.*;
+import java.net.Socket;
+
+final class Handshake {
+    private static final String GREETING = "BATTLESHIP";
+    private static final String HEARTBEAT = "PING";
+    private static final String SESSION = "SESSION=";
+    private static final String SALVO = "SALVO=";
+    private static final String RESUME = "RESUME";
+    private static final String RESUMED = "RESUMED";
+
+    final String protocol;
+    final GameConfig config;
+    final boolean heartbeat;
+    final long session;    // 0 when the host offered no session
+    final int salvo;       // Shots per turn, 1 for the classic game
+
+    private Handshake(String protocol, GameConfig config, boolean heartbeat, long session, int salvo) {
+        this.protocol = protocol;
+        this.config = config;
+        this.heartbeat = heartbeat;
+        this.session = session;
+        this.salvo = salvo;
+    }
+
+    // Run the handshake for a classic game, one shot per turn
+    static Handshake negotiate(Socket socket, NetworkedGame.Role role, boolean preferBinary, boolean heartbeat,
+                               GameConfig config, long session) throws IOException {
+        return negotiate(socket, role, preferBinary, heartbeat, config, session, 1);
+    }
+
+    // Run the handshake for our role; config, session and salvo are what the host proposes and are ignored on the
+    // client side
+    static Handshake negotiate(Socket socket, NetworkedGame.Role role, boolean preferBinary, boolean heartbeat,
+                               GameConfig config, long session, int salvo) throws IOException {
+        InputStream in = socket.getInputStream();
+        OutputStream out = socket.getOutputStream();
+        String ping = heartbeat ? " " + HEARTBEAT : "";
+        if (role == NetworkedGame.Role.HOST) {
+            String offer = (session != 0 ? " " + SESSION + Long.toHexString(session) : "")
+                    + (salvo > 1 ? " " + SALVO + salvo : "");
+            Wire.writeLine(out, GREETING + " " + (preferBinary ? Wire.BINARY : Wire.TEXT) + " " + config + ping + offer);
+            String reply = Wire.readLine(in);
+            if (reply == null) throw new EOFException("Peer closed during handshake");
+            Handshake accepted = parse(reply);
+            return new Handshake(accepted.protocol, config, heartbeat && accepted.heartbeat, session,
+                    accepted.salvo == salvo ? salvo : 1);
+        }
+        String hello = Wire.readLine(in);
+        if (hello == null) throw new EOFException("Peer closed during handshake");
+        Handshake offered = parse(hello);
+        String protocol = preferBinary && offered.protocol.equals(Wire.BINARY) ? Wire.BINARY : Wire.TEXT;
+        boolean agreed = heartbeat && offered.heartbeat;
+        Wire.writeLine(out, GREETING + " " + protocol + (agreed ? ping : "")
+                + (offered.salvo > 1 ? " " + SALVO + offered.salvo : ""));
+        return new Handshake(protocol, offered.config, agreed, offered.session, offered.salvo);
+    }
+
+    // Take up a dropped session on a new socket, in place of negotiate(): the client asks, the host answers. Returns how
+    // many turns the peer has played; throws if the peer doesn't know the session.
+    static int resume(Socket socket, NetworkedGame.Role role, long session, int turns) throws IOException {
+        InputStream in = socket.getInputStream();
+        OutputStream out = socket.getOutputStream();
+        String token = Long.toHexString(session);
+        if (role == NetworkedGame.Role.CLIENT) {
+            Wire.writeLine(out, RESUME + " " + token + " " + turns);
+            String[] reply = split(Wire.readLine(in));
+            if (reply.length != 2 || !reply[0].equals(RESUMED)) throw new IOException("Host refused to resume");
+            return parseTurns(reply[1]);
+        }
+        String[] request = split(Wire.readLine(in));
+        if (request.length != 3 || !request[0].equals(RESUME) || !request[1].equals(token)) {
+            Wire.writeLine(out, "REJECTED");
+            throw new IOException("Not a resume of this session");
+        }
+        Wire.writeLine(out, RESUMED + " " + turns);
+        return parseTurns(request[2]);
+    }
+
+    private static String[] split(String line) throws IOException {
+        if (line == null) throw new EOFException("Peer closed while resuming");
+        return line.trim().split(" ");
+    }
+
+    private static int parseTurns(String text) throws IOException {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IOException("Bad turn count: " + text);
+        }
+    }
+
+    // Read the protocol, config and heartbeat offer out of a hello or reply line; anything unrecognised falls back to
+    // the text protocol without heartbeats
+    static Handshake parse(String line) throws IOException {
+        String[] parts = line.trim().split(" ");
+        if (!parts[0].equals(GREETING)) throw new IOException("Not a battleship handshake: " + line);
+        String protocol = parts.length > 1 && parts[1].equals(Wire.BINARY) ? Wire.BINARY : Wire.TEXT;
+        GameConfig config = GameConfig.STANDARD;
+        boolean heartbeat = false;
+        long session = 0;
+        int salvo = 1;
+        for (int i = 2; i < parts.length; i++) {
+            if (parts[i].equals(HEARTBEAT)) {
+                heartbeat = true;
+                continue;
+            }
+            try {
+                if (parts[i].startsWith(SESSION)) session = Long.parseUnsignedLong(parts[i].substring(SESSION.length()), 16);
+                else if (parts[i].startsWith(SALVO)) salvo = parseSalvo(parts[i].substring(SALVO.length()));
+                else config = GameConfig.parse(parts[i]);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Bad option in handshake: " + line);
+            }
+        }
+        return new Handshake(protocol, config, heartbeat, session, salvo);
+    }
+
+    private static int parseSalvo(String text) {
+        int salvo = Integer.parseInt(text);
+        if (salvo < 1) throw new IllegalArgumentException("Salvo must be at least 1 shot: " + salvo);
+        return salvo;
+    }
+
+    // The same line without the heartbeat, session and salvo offers, for relays that can't pass heartbeats through,
+    // can't take a dropped player back and expect one shot per turn
+    static String forRelay(String line) {
+        StringBuilder relayed = new StringBuilder();
+        for (String part : line.trim().split(" ")) {
+            if (part.equals(HEARTBEAT) || part.startsWith(SESSION) || part.startsWith(SALVO)) continue;
+            if (relayed.length() > 0) relayed.append(' ');
+            relayed.append(part);
+        }
+        return relayed.toString();
+    }
+}
@@ -0,0 +1,78 @@
+package com.battleship;
+
+// This class HuntTargetStrategy is the classic two-mode shooter. While hunting it fires at random cells of one colour of
+// a checkerboard (every ship of length 2 or more covers at least one of them); after a hit it switches to targeting and
+// works through the unfired neighbours of its hits before going back to hunting.
+
+import java.util.SplittableRandom;
+
+public class HuntTargetStrategy implements TargetingStrategy {
+    private int rows;
+    private int cols;
+    private CellSet fired = new CellSet(0);
+    private int[] order = new int[0];   // Hunt order: a random permutation of all cells
+    private int huntNext;               // Position in order for the checkerboard pass
+    private int fallbackNext;           // Position in order for the pass over everything else
+    private int[] targets = new int[0]; // Stack of neighbours queued after hits
+    private int targetTop;
+
+    @Override
+    public void reset(int rows, int cols, int[] fleet, SplittableRandom random) {
+        int cells = rows * cols;
+        if (order.length != cells) {
+            order = new int[cells];
+            targets = new int[4 * cells];
+            fired = new CellSet(cells);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        fired.clear();
+        huntNext = 0;
+        fallbackNext = 0;
+        targetTop = 0;
+        for (int i = 0; i < cells; i++) order[i] = i;
+        for (int i = cells - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = order[i];
+            order[i] = order[j];
+            order[j] = t;
+        }
+    }
+
+    @Override
+    public int nextShot() {
+        while (targetTop > 0) {
+            int cell = targets[--targetTop];
+            if (!fired.contains(cell)) return fire(cell);
+        }
+        while (huntNext < order.length) {
+            int cell = order[huntNext++];
+            if (!fired.contains(cell) && ((cell / cols + cell % cols) & 1) == 0) return fire(cell);
+        }
+        while (fallbackNext < order.length) {
+            int cell = order[fallbackNext++];
+            if (!fired.contains(cell)) return fire(cell);
+        }
+        throw new IllegalStateException("Every cell has been fired at");
+    }
+
+    @Override
+    public void onResult(int cell, String result) {
+        if (result.equals("MISS")) return;
+        int row = cell / cols;
+        int col = cell % cols;
+        if (row > 0) push(cell - cols);
+        if (row < rows - 1) push(cell + cols);
+        if (col > 0) push(cell - 1);
+        if (col < cols - 1) push(cell + 1);
+    }
+
+    private void push(int cell) {
+        if (!fired.contains(cell)) targets[targetTop++] = cell;
+    }
+
+    private int fire(int cell) {
+        fired.add(cell);
+        return cell;
+    }
+}
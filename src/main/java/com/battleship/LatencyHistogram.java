@@ -0,0 +1,69 @@
+package com.battleship;
+
+// This class LatencyHistogram counts durations in the same log-linear layout HdrHistogram uses: every power of two is
+// split into 32 equal sub-buckets, so any recorded value is known to within about 3% whether it is 200 ns or 20 s, in a
+// fixed 15 KB of counters. Recording is a few atomic adds with no lock and no allocation, so any number of threads can
+// record into one histogram while another reads percentiles from it.
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    // Count one duration; negative values count as 0
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(value));
+        total.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public long count() {
+        return total.sum();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    public double mean() {
+        long n = total.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    // Upper bound in nanoseconds on the given fraction (e.g. 0.99) of the recorded values; 0 if nothing was recorded
+    public long percentile(double fraction) {
+        long wanted = (long) Math.ceil(total.sum() * fraction);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= wanted && seen > 0) return Math.min(upperBound(i), max.get());
+        }
+        return 0;
+    }
+
+    // Values below 32 get a bucket each; above that, the top 6 bits pick the bucket and the rest are dropped
+    static int indexOf(long value) {
+        if (value < SUB_COUNT) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return ((shift + 1) << SUB_BITS) + (int) ((value >>> shift) & (SUB_COUNT - 1));
+    }
+
+    // Largest value that lands in bucket i
+    static long upperBound(int i) {
+        if (i < SUB_COUNT) return i;
+        int shift = (i >>> SUB_BITS) - 1;
+        long top = SUB_COUNT | (i & (SUB_COUNT - 1));
+        return ((top + 1) << shift) - 1;
+    }
+}
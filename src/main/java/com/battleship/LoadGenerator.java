@@ -0,0 +1,191 @@
+package com.battleship;
+
+// This class LoadGenerator drives a GameServer with bot players to see how it behaves under load. Every bot opens its
+// own loopback connection, waits in the lobby to be paired, runs the same Handshake a NetworkedGame player runs and then
+// plays the match over the agreed Wire without pausing: a HuntTargetStrategy picks its shots and its own Board answers
+// the opponent's. When a match ends the bot reconnects for the next one, so connection setup is measured under load too.
+// It reports connect and setup times (connect until the handshake is done, including the wait for an opponent), moves
+// per second and the per-move latency percentiles.
+// With no address it starts a GameServer in this JVM on a free port, so it runs anywhere, CI included; with
+// -Dbattleship.authoritative=true that server checks every move (see MatchEngine) and the bots declare their fleets.
+// Run with: mvn exec:java -Dexec.mainClass=com.battleship.LoadGenerator -Dexec.args="<bots> <games per bot> [host:port]"
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LoadGenerator {
+    private static final int TIMEOUT_MILLIS = 30_000; // A bot stuck this long in the lobby or mid-match gives up
+
+    private final InetSocketAddress target;
+    private final GameConfig config;
+    private final boolean binary;
+
+    private final LatencyHistogram connect = new LatencyHistogram(); // TCP connect
+    private final LatencyHistogram setup = new LatencyHistogram();   // Connect, pairing and handshake
+    private final LatencyHistogram move = new LatencyHistogram();    // Move flushed to its result read
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder gamesWon = new LongAdder();
+    private final LongAdder gamesLost = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public LoadGenerator(InetSocketAddress target, GameConfig config, boolean binary) {
+        this.target = target;
+        this.config = config;
+        this.binary = binary;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int bots = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        boolean binary = Boolean.getBoolean("battleship.binary");
+        Metrics.start();
+
+        GameServer server = null;
+        InetSocketAddress target;
+        if (args.length > 2) {
+            String[] hostPort = args[2].split(":");
+            target = new InetSocketAddress(hostPort[0], Integer.parseInt(hostPort[1]));
+        } else {
+            GameServer local = new GameServer(0, 0);
+            server = local;
+            GameServer.daemon("game-server").newThread(() -> {
+                try {
+                    local.run();
+                } catch (IOException e) {
+                    System.err.println("Game server failed: " + e.getMessage());
+                }
+            }).start();
+            while (local.getLocalPort() < 0) Thread.sleep(10);
+            target = new InetSocketAddress("localhost", local.getLocalPort());
+        }
+
+        LoadGenerator generator = new LoadGenerator(target, GameConfig.STANDARD, binary);
+        double seconds = generator.run(bots, games);
+        System.out.printf("%d bots x %d games against %s (%s wire) in %.2f s%n", bots, games, target,
+                binary ? Wire.BINARY : Wire.TEXT, seconds);
+        System.out.print(generator.report(seconds));
+        if (server != null) {
+            System.out.printf("Server: %d matches completed, %d peak concurrent sessions, %d violations%n",
+                    server.getMatchesCompleted(), server.getPeakSessions(), server.getViolations());
+            server.close();
+        }
+    }
+
+    // Run every bot to the end of its games and return the wall-clock seconds it took. Bots must come in pairs, or the
+    // last one waits out its timeout in the lobby.
+    public double run(int bots, int games) throws InterruptedException {
+        ExecutorService executor = GameServer.newSessionExecutor();
+        CountDownLatch done = new CountDownLatch(bots);
+        long start = System.nanoTime();
+        for (int i = 0; i < bots; i++) {
+            long seed = i;
+            executor.execute(() -> {
+                try {
+                    playBot(games, new SplittableRandom(seed));
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+        return seconds;
+    }
+
+    // Moves, games and the three latency distributions, times in microseconds
+    public String report(double seconds) {
+        long n = moves.sum();
+        return String.format("Games: %,d won, %,d lost, %,d failed%n", gamesWon.sum(), gamesLost.sum(), failures.sum())
+                + String.format("Moves: %,d (%,.0f moves/s)%n", n, n / seconds)
+                + line("connect", connect) + line("setup", setup) + line("move", move);
+    }
+
+    private static String line(String name, LatencyHistogram h) {
+        return String.format("  %-8s n=%,d mean=%.1f p50=%.1f p99=%.1f p999=%.1f max=%.1f us%n", name, h.count(),
+                h.mean() / 1e3, h.percentile(0.5) / 1e3, h.percentile(0.99) / 1e3, h.percentile(0.999) / 1e3,
+                h.max() / 1e3);
+    }
+
+    // One bot: its own strategy, fleet generator and random, reused for every game it plays
+    private void playBot(int games, SplittableRandom random) {
+        TargetingStrategy strategy = new HuntTargetStrategy();
+        FleetGenerator generator = new FleetGenerator(config);
+        for (int g = 0; g < games; g++) {
+            try {
+                playGame(strategy, generator, random);
+            } catch (IOException e) {
+                failures.increment();
+            }
+        }
+    }
+
+    private void playGame(TargetingStrategy strategy, FleetGenerator generator, SplittableRandom random)
+            throws IOException {
+        long start = System.nanoTime();
+        try (Socket socket = new Socket()) {
+            socket.connect(target, TIMEOUT_MILLIS);
+            connect.record(System.nanoTime() - start);
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(TIMEOUT_MILLIS);
+
+            String match = Wire.readLine(socket.getInputStream());
+            if (match == null || !match.startsWith("MATCH ")) throw new IOException("Not paired: " + match);
+            NetworkedGame.Role role = match.startsWith("MATCH HOST")
+                    ? NetworkedGame.Role.HOST : NetworkedGame.Role.CLIENT;
+            Handshake handshake = Handshake.negotiate(socket, role, binary, false, config, 0);
+            setup.record(System.nanoTime() - start);
+
+            GameConfig agreed = handshake.config;
+            int cols = agreed.cols();
+            Board board = new Board(agreed.rows(), cols);
+            if (match.endsWith(" " + MatchEngine.FLEET)) {
+                // The server wants to know where our ships are, so place them from a layout it can be sent
+                int[] fleet = agreed.fleet();
+                int[] layout = new int[fleet.length];
+                generator.generate(layout, random);
+                for (int i = 0; i < fleet.length; i++) board.placeShip(generator.toShip(layout[i], fleet[i]));
+                Wire.writeLine(socket.getOutputStream(), MatchEngine.fleetLine(layout));
+            } else {
+                generator.placeFleet(board, random);
+            }
+            Wire wire = Wire.create(handshake.protocol, socket, cols);
+            strategy.reset(agreed.rows(), cols, agreed.fleet(), random);
+
+            boolean myTurn = role == NetworkedGame.Role.HOST; // Host goes first
+            while (true) {
+                if (myTurn) {
+                    int cell = strategy.nextShot();
+                    wire.sendMove(Coordinate.ofCell(cell, cols));
+                    wire.flush();
+                    long sent = System.nanoTime();
+                    if (wire.read() != Wire.RESULT) throw new IOException("Opponent left mid-match");
+                    move.record(System.nanoTime() - sent);
+                    moves.increment();
+                    String result = wire.lastResult();
+                    if (result.equals("WIN")) {
+                        gamesWon.increment();
+                        return;
+                    }
+                    strategy.onResult(cell, result);
+                } else {
+                    if (wire.read() != Wire.MOVE) throw new IOException("Opponent left mid-match");
+                    String result = board.attack(wire.lastMove());
+                    boolean lost = board.allShipsSunk();
+                    wire.sendResult(lost ? "WIN" : result);
+                    wire.flush();
+                    if (lost) {
+                        gamesLost.increment();
+                        return;
+                    }
+                }
+                myTurn = !myTurn;
+            }
+        }
+    }
+}
@@ -2,31 +2,63 @@ package com.battleship;
 
 // This class Game represents the main Local Game that the users will be interacting with. 
 // This will hold the main CLI loop for player interactions locally, without using sockets.
-
+// With -Dbattleship.log=<file> the game is appended to a GameLog so it can be replayed later.
+// With -Dbattleship.store=<dir> the finished game, with its seed, fleets and shots, is added to a MatchStore.
+// With -Dbattleship.metrics=true attack timings are collected in Metrics and dumped periodically.
+// Both fleets are drawn from one seeded generator; --seed <n> replays a game exactly when given the same attacks.
+// All console traffic goes through ConsoleIO and is flushed once per turn. With --script <file> (or - for stdin) the
+// attacks are read from a script, both players' in turn, without asking to show the ships, so a recorded game replays
+// at full speed.
+
+import java.io.IOException;
 import java.util.*;
 
 public class LocalGame {
-    private static final Scanner scanner = new Scanner(System.in);
-    private static final int BOARD_SIZE = 10;
-
-    public static void main(String[] args) {
-        System.out.println("=== Welcome to Battleship CLI ===");
+    private static final String PROMPT = "Enter target (e.g., B4): ";
+    private static ConsoleIO console = ConsoleIO.system();
+    private static final BoardRenderer renderer = new BoardRenderer();
+    private static final StringBuilder frame = new StringBuilder();
+    private static SplittableRandom random; // Every random choice of the game, from its seed
+    private static GameConfig config = GameConfig.STANDARD; // Board size and fleet, from --board and --fleet
+    private static FleetGenerator fleetGenerator = new FleetGenerator(config);
+
+    public static void main(String[] args) throws IOException {
+        Metrics.start();
+        console = ConsoleIO.fromArgs(args);
+        console.println("=== Welcome to Battleship CLI ===");
+        config = GameConfig.fromArgs(args);
+        fleetGenerator = new FleetGenerator(config);
+        long seed = GameSeed.fromArgs(args);
+        random = new SplittableRandom(seed);
+        console.println("Playing " + config);
+        console.println(GameSeed.describe(seed));
 
         // Initialize each player's board
-        Board player1Board = new Board();
-        Board player2Board = new Board();
+        Board player1Board = new Board(config.rows(), config.cols());
+        Board player2Board = new Board(config.rows(), config.cols());
 
-        // Keep track of attack history to prevent duplicates
-        Set<Coordinate> player1Attacks = new HashSet<>();
-        Set<Coordinate> player2Attacks = new HashSet<>();
+        // Keep track of attack history to prevent duplicates, one bit per cell
+        CellSet player1Attacks = new CellSet(config.cells());
+        CellSet player2Attacks = new CellSet(config.cells());
 
         // Place ships randomly for both players
-        System.out.println("Placing ships for Player 1...");
+        console.println("Placing ships for Player 1...");
         placeShips(player1Board);
 
-        System.out.println("Placing ships for Player 2...");
+        console.println("Placing ships for Player 2...");
         placeShips(player2Board);
 
+        GameLog log = GameLog.fromSystemProperty();
+        int game = -1;
+        int turn = 0;
+        if (log != null) {
+            game = log.startGame(config);
+            log.placement(game, 0, player1Board);
+            log.placement(game, 1, player2Board);
+        }
+        int[] shots = new int[2 * config.cells()]; // Every shot as cell << 1 | player, for the MatchStore
+        int shotCount = 0;
+
         // Main game loop
         boolean gameOver = false;
         boolean player1Turn = true;
@@ -34,29 +66,37 @@ public class LocalGame {
         while (!gameOver) {
             Board attackerBoard = player1Turn ? player1Board : player2Board;
             Board defenderBoard = player1Turn ? player2Board : player1Board;
-            Set<Coordinate> attackHistory = player1Turn ? player1Attacks : player2Attacks;
+            CellSet attackHistory = player1Turn ? player1Attacks : player2Attacks;
             String currentPlayer = player1Turn ? "Player 1" : "Player 2";
 
-            System.out.println("\n" + currentPlayer + "'s turn");
+            console.println("\n" + currentPlayer + "'s turn");
 
-            // Optionally show the player's own board with ships
-            System.out.print("Would you like to view your ships before attacking? (y/n): ");
-            String viewOwn = scanner.nextLine().trim().toLowerCase();
-            if (viewOwn.equals("y")) {
-                System.out.println(currentPlayer + " — Your board (ships shown):");
-                attackerBoard.printBoard(true);
+            // Optionally show the player's own board with ships; a script can't answer, so it never asks
+            if (!console.isScripted()) {
+                console.print("Would you like to view your ships before attacking? (y/n): ");
+                String viewOwn = console.readLine();
+                if (viewOwn != null && viewOwn.trim().equalsIgnoreCase("y")) {
+                    console.println(currentPlayer + " — Your board (ships shown):");
+                    printBoard(attackerBoard, true);
+                }
             }
 
             // Show opponent's board (only known hits/misses)
-            System.out.println("Opponent's board (hits/misses only):");
-            defenderBoard.printBoard(false);
+            console.println("Opponent's board (hits/misses only):");
+            printBoard(defenderBoard, false);
 
             // Prompt for attack, ensure no duplicates
-            Coordinate target;
+            int target;
             while (true) {
-                target = getInputCoordinate();
+                target = getInputCell();
+                if (target < 0) {
+                    console.println("No more attacks to read; the game ends unfinished.");
+                    console.flush();
+                    if (log != null) log.close();
+                    return;
+                }
                 if (attackHistory.contains(target)) {
-                    System.out.println("You've already attacked that coordinate. Try again.");
+                    console.println("You've already attacked that coordinate. Try again.");
                 } else {
                     attackHistory.add(target);
                     break;
@@ -64,73 +104,77 @@ public class LocalGame {
             }
 
             // Process attack and display result
-            String result = defenderBoard.attack(target);
-            System.out.println("Result: " + result);
+            String result = defenderBoard.attack(target / config.cols(), target % config.cols());
+            console.println("Result: " + result);
+            if (log != null) log.attack(game, player1Turn ? 0 : 1, turn, target, result);
+            shots[shotCount++] = target << 1 | (player1Turn ? 0 : 1);
+            turn++;
 
             // Check for victory
             if (defenderBoard.allShipsSunk()) {
-                System.out.println(currentPlayer + " wins!");
+                console.println(currentPlayer + " wins!");
                 gameOver = true;
+                if (log != null) {
+                    log.endGame(game, player1Turn ? 0 : 1, turn);
+                    log.close();
+                }
+                storeGame(seed, player1Board, player2Board, shots, shotCount, player1Turn ? 0 : 1);
             } else {
                 player1Turn = !player1Turn; // Switch turn
             }
+            console.flush();
+        }
+    }
+
+    /** Draw a board into the console's buffer */
+    private static void printBoard(Board board, boolean showShips) {
+        frame.setLength(0);
+        renderer.render(board, showShips, frame);
+        console.print(frame);
+    }
+
+    /** Add the finished game to the MatchStore, if -Dbattleship.store names one */
+    private static void storeGame(long seed, Board player1Board, Board player2Board, int[] shots, int shotCount,
+                                  int winner) {
+        int[][] layouts = new int[2][config.fleet().length];
+        FleetGenerator.layoutOf(player1Board, layouts[0]);
+        FleetGenerator.layoutOf(player2Board, layouts[1]);
+        try (MatchStore store = MatchStore.fromSystemProperty()) {
+            if (store == null) return;
+            long match = store.add("Player 1", "Player 2", config, seed, layouts[0], layouts[1], shots, shotCount,
+                    winner);
+            console.println("Stored as match #" + match);
+        } catch (IOException e) {
+            console.println("Game not stored: " + e.getMessage());
         }
     }
 
     /**
      * Randomly places a set of ships on the board.
-     * Ships follow the classic sizes: 5, 4, 3, 3, 2
+     * Ships follow the configured fleet, by default the classic sizes: 5, 4, 3, 3, 2
      */
-    private static void placeShips(Board board) {
-        int[] shipSizes = {5, 4, 3, 3, 2}; // Carrier, Battleship, Cruiser, Submarine, Destroyer
-
-        for (int size : shipSizes) {
-            boolean placed = false;
-            while (!placed) {
-                int row = new Random().nextInt(BOARD_SIZE);
-                int col = new Random().nextInt(BOARD_SIZE);
-                boolean horizontal = new Random().nextBoolean();
-                List<Coordinate> coords = new ArrayList<>();
-
-                for (int i = 0; i < size; i++) {
-                    int r = row + (horizontal ? 0 : i);
-                    int c = col + (horizontal ? i : 0);
-                    coords.add(new Coordinate(r, c));
-                }
-
-                Ship ship = new Ship(coords);
-                placed = board.placeShip(ship);
-            }
-        }
+    static void placeShips(Board board) {
+        fleetGenerator.placeFleet(board, random);
     }
 
     /**
-     * Converts a string input (e.g. "C5") into a Coordinate object.
-     * Handles invalid input safely.
+     * Converts a string input (e.g. "C5") into a packed cell index (row * cols + col).
+     * Handles invalid input safely. Returns -1 once the input has run out.
      */
-    private static Coordinate getInputCoordinate() {
+    private static int getInputCell() throws IOException {
         while (true) {
-            System.out.print("Enter target (e.g., B4): ");
-            String input = scanner.nextLine().toUpperCase();
-
-            if (input.length() < 2 || input.length() > 3)
-                continue;
-
-            char colChar = input.charAt(0);
-            int row;
-
-            try {
-                row = Integer.parseInt(input.substring(1)) - 1;
-            } catch (NumberFormatException e) {
-                continue;
-            }
-
-            int col = colChar - 'A';
-            if (row >= 0 && row < BOARD_SIZE && col >= 0 && col < BOARD_SIZE) {
-                return new Coordinate(row, col);
+            console.print(PROMPT);
+            CharSequence input = console.isScripted() ? console.nextToken() : console.readLine();
+            if (input == null) return -1;
+            if (console.isScripted()) console.println(input); // Echo it, so the output reads like the game played
+            else input = input.toString().trim();
+
+            int cell = BoardNotation.parseCell(input, config.rows(), config.cols());
+            if (cell >= 0) {
+                return cell;
             }
 
-            System.out.println("Invalid coordinate. Try again.");
+            console.println("Invalid coordinate. Try again.");
         }
     }
 }
\ No newline at end of file
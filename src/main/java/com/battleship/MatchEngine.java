@@ -0,0 +1,169 @@
+package com.battleship;
+
+// This class MatchEngine is the server's own record of a match when the GameServer runs authoritatively: both fleets,
+// the cells each player has fired at and whose turn it is. Every move is checked against it before anything is relayed
+// (out of turn, off the board and repeated shots are rejected) and its result is worked out here rather than taken on
+// the defender's word. A move costs a bitset test or two (a hit also looks through the few ships for the one it struck)
+// and nothing is allocated, so validating a match costs next to nothing beside relaying it. Fleets are kept as the
+// layouts the players declared plus a bitset of the cells they cover, rather than a ship number per cell, so a match
+// waiting on its players holds a couple of hundred bytes of state.
+//
+// Players are 0 (the host, who moves first) and 1. Each declares its fleet once, after the handshake, as a line
+// "FLEET <entry>,<entry>,..." with one layout entry per ship in fleet order (start cell * 2, plus 1 if the ship runs
+// down), the form FleetGenerator writes.
+
+final class MatchEngine {
+    // Rejections returned by fire() in place of a result
+    static final int OUT_OF_TURN = -1;
+    static final int OUT_OF_RANGE = -2;
+    static final int DUPLICATE = -3;
+    static final int GAME_OVER = -4;
+    static final int NOT_READY = -5; // A fleet hasn't been declared yet
+
+    static final String FLEET = "FLEET";
+
+    private static final String[] RESULTS = {null, "MISS", "HIT", "SUNK", "WIN"}; // By BinaryWire result code
+
+    private final int rows;
+    private final int cols;
+    private final int[] fleet;
+    private final int[][] layouts;      // layouts[p]: the fleet player p declared, one layout entry per ship
+    private final CellSet[] occupied = new CellSet[2]; // occupied[p]: every cell one of player p's ships covers
+    private final int[][] partsLeft;    // partsLeft[p][ship]: parts of the ship not hit yet
+    private final int[] afloat = new int[2];
+    private final CellSet[] shots = new CellSet[2]; // shots[p]: every cell player p has fired at
+    private final boolean[] placed = new boolean[2];
+    private int turn;
+    private boolean over;
+
+    MatchEngine(GameConfig config) {
+        this.rows = config.rows();
+        this.cols = config.cols();
+        this.fleet = config.fleet();
+        int cells = config.cells();
+        layouts = new int[2][fleet.length];
+        partsLeft = new int[2][fleet.length];
+        for (int p = 0; p < 2; p++) {
+            occupied[p] = new CellSet(cells);
+            shots[p] = new CellSet(cells);
+        }
+    }
+
+    // Start a new match with the same config: no fleets, no shots, the host to move
+    void reset() {
+        for (int p = 0; p < 2; p++) {
+            occupied[p].clear();
+            shots[p].clear();
+            placed[p] = false;
+        }
+        turn = 0;
+        over = false;
+    }
+
+    // Take a player's fleet; false, with nothing placed, if it is missing or the wrong size
+    // or a ship is off the board or overlaps another
+    boolean placeFleet(int player, int[] layout) {
+        if (layout == null || placed[player] || layout.length != fleet.length) return false;
+        CellSet board = occupied[player];
+        for (int i = 0; i < fleet.length; i++) {
+            int start = FleetGenerator.startCell(layout[i]);
+            boolean vertical = FleetGenerator.isVertical(layout[i]);
+            int row = start / cols;
+            int col = start % cols;
+            boolean fits = layout[i] >= 0 && row < rows && (vertical ? row + fleet[i] <= rows : col + fleet[i] <= cols);
+            int step = vertical ? cols : 1;
+            for (int j = 0, cell = start; fits && j < fleet[i]; j++, cell += step) {
+                fits = !board.contains(cell);
+                board.add(cell);
+            }
+            if (!fits) {
+                board.clear();
+                return false;
+            }
+            partsLeft[player][i] = fleet[i];
+        }
+        System.arraycopy(layout, 0, layouts[player], 0, fleet.length);
+        afloat[player] = fleet.length;
+        placed[player] = true;
+        return true;
+    }
+
+    // The player to move next
+    int turn() {
+        return turn;
+    }
+
+    // Player fires at (row, col): the result as a BinaryWire result code, or one of the rejections above
+    int fire(int player, int row, int col) {
+        if (over) return GAME_OVER;
+        if (!placed[0] || !placed[1]) return NOT_READY;
+        if (player != turn) return OUT_OF_TURN;
+        if (row < 0 || row >= rows || col < 0 || col >= cols) return OUT_OF_RANGE;
+        int cell = row * cols + col;
+        CellSet fired = shots[player];
+        if (fired.contains(cell)) return DUPLICATE;
+        fired.add(cell);
+        turn = player ^ 1;
+
+        int defender = player ^ 1;
+        if (!occupied[defender].contains(cell)) return BinaryWire.MISS_CODE;
+        if (--partsLeft[defender][shipAt(defender, row, col)] > 0) return BinaryWire.HIT_CODE;
+        if (--afloat[defender] > 0) return BinaryWire.SUNK_CODE;
+        over = true;
+        return BinaryWire.WIN_CODE;
+    }
+
+    // The index of the player's ship covering (row, col), which must be one of its occupied cells
+    private int shipAt(int player, int row, int col) {
+        int[] layout = layouts[player];
+        for (int i = 0; ; i++) {
+            int start = FleetGenerator.startCell(layout[i]);
+            int startRow = start / cols;
+            int startCol = start % cols;
+            if (FleetGenerator.isVertical(layout[i])) {
+                if (col == startCol && row >= startRow && row < startRow + fleet[i]) return i;
+            } else if (row == startRow && col >= startCol && col < startCol + fleet[i]) {
+                return i;
+            }
+        }
+    }
+
+    // "MISS", "HIT", "SUNK" or "WIN" for a result fire() returned
+    static String resultName(int code) {
+        return RESULTS[code];
+    }
+
+    // Why fire() turned a move down
+    static String rejection(int code) {
+        switch (code) {
+            case OUT_OF_TURN: return "moved out of turn";
+            case OUT_OF_RANGE: return "fired off the board";
+            case DUPLICATE: return "fired at the same cell twice";
+            case GAME_OVER: return "moved after the game ended";
+            default: return "moved before both fleets were declared";
+        }
+    }
+
+    // The line a player sends to declare its fleet
+    static String fleetLine(int[] layout) {
+        StringBuilder line = new StringBuilder(FLEET).append(' ');
+        for (int i = 0; i < layout.length; i++) {
+            if (i > 0) line.append(',');
+            line.append(layout[i]);
+        }
+        return line.toString();
+    }
+
+    // The layout in a FLEET line, or null if the line isn't one
+    static int[] parseFleet(String line) {
+        if (line == null || !line.startsWith(FLEET + " ")) return null;
+        String[] parts = line.substring(FLEET.length() + 1).trim().split(",");
+        int[] layout = new int[parts.length];
+        try {
+            for (int i = 0; i < parts.length; i++) layout[i] = Integer.parseInt(parts[i].trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return layout;
+    }
+}
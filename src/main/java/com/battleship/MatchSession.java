@@ -0,0 +1,212 @@
+package com.battleship;
+
+// This class MatchSession relays one match between two players that the GameServer paired from its lobby.
+// It speaks the same protocol as NetworkedGame: the attacker sends a move, the defender answers with HIT, MISS, SUNK
+// or WIN, and the turn passes. The first player taken from the lobby plays as HOST and moves first.
+// The session is a state machine over the fields below: each message read moves it on, and when the player it waits
+// for has been quiet for a while it parks with the GameServer and its run() returns; the server runs it again, on any
+// thread, once that player sends something.
+
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.channels.SocketChannel;
+
+class MatchSession implements Runnable {
+    // What a message did to the match
+    private static final int PLAYING = 0;
+    private static final int COMPLETED = 1; // Played to a win
+    private static final int ENDED = 2;     // A player left or broke the rules, and loses by disconnection
+
+    private final GameServer server;
+    private final Socket host;
+    private final Socket client;
+    private final boolean authoritative; // Both players declare their fleets after the handshake to a MatchEngine
+
+    // Where the match stands, kept here rather than on the stack so the session can park and carry on on another thread
+    private Wire hostWire;           // Null until the handshake is done
+    private Wire clientWire;
+    private MatchEngine engine;      // Authoritative sessions only
+    private boolean hostTurn = true; // Host goes first
+    private boolean awaitingAnswer;  // The attacker's move has been relayed and the defender has yet to answer it
+    private int expected;            // Authoritative: the engine's result code for that move
+    private long turnStart;          // For Metrics: the attacker's turn starting to the result relayed back
+    private long moveSent;           // and the move relayed to the defender's answer read
+
+    MatchSession(GameServer server, Socket host, Socket client, boolean authoritative) {
+        this.server = server;
+        this.host = host;
+        this.client = client;
+        this.authoritative = authoritative;
+    }
+
+    @Override
+    public void run() {
+        int outcome = ENDED;
+        try {
+            if (hostWire == null && !setUp()) return;
+            while (true) {
+                Wire attacker = hostTurn ? hostWire : clientWire;
+                Wire defender = hostTurn ? clientWire : hostWire;
+                int kind;
+                try {
+                    kind = (awaitingAnswer ? defender : attacker).read();
+                } catch (SocketTimeoutException e) {
+                    // The player has gone quiet: free this thread until they send something
+                    if (hostWire.park() && clientWire.park()) {
+                        outcome = PLAYING;
+                        server.park(this);
+                        return;
+                    }
+                    continue;
+                }
+                outcome = awaitingAnswer ? onAnswer(kind, attacker, defender) : onMove(kind, attacker, defender);
+                if (outcome != PLAYING) return;
+            }
+        } catch (IOException e) {
+            outcome = ENDED; // A player dropped mid-match
+        } finally {
+            if (outcome != PLAYING) finish(outcome == COMPLETED);
+        }
+    }
+
+    // Assign roles and pass the handshake through; false if a player left or declared a fleet that can't be right
+    private boolean setUp() throws IOException {
+        // Tell each player which role to start NetworkedGame with
+        String declare = authoritative ? " " + MatchEngine.FLEET : "";
+        Wire.writeLine(host.getOutputStream(), "MATCH HOST" + declare);
+        Wire.writeLine(client.getOutputStream(), "MATCH CLIENT" + declare);
+
+        // Pass the protocol handshake through, then speak whichever protocol the players agreed on. The relay only
+        // reads from the player whose turn it is, so it can't carry heartbeats or resume a dropped player, and takes
+        // both offers out of the hello.
+        String hello = Wire.readLine(host.getInputStream());
+        if (hello == null) return false;
+        GameConfig config = Handshake.parse(hello).config; // The client always plays the host's config
+        if (authoritative && config.cells() > server.maxCells()) {
+            // Turned down before a MatchEngine is sized for it; closing both connections tells the players
+            server.violation();
+            return false;
+        }
+        Wire.writeLine(client.getOutputStream(), Handshake.forRelay(hello));
+        String reply = Wire.readLine(client.getInputStream());
+        if (reply == null) return false;
+        Wire.writeLine(host.getOutputStream(), reply);
+        String protocol = Handshake.parse(reply).protocol;
+        int cols = config.cols(); // Binary moves are packed by the host's board width
+        if (authoritative) {
+            // Fleets come before the wires are built, which may buffer whatever follows them
+            engine = new MatchEngine(config);
+            if (!engine.placeFleet(0, MatchEngine.parseFleet(Wire.readLine(host.getInputStream())))
+                    || !engine.placeFleet(1, MatchEngine.parseFleet(Wire.readLine(client.getInputStream())))) {
+                server.violation();
+                return false;
+            }
+        }
+        // From here on a player quiet for parkMillis parks the session; only sockets with a channel can be watched
+        int parkMillis = server.parkMillis();
+        if (parkMillis > 0 && host.getChannel() != null && client.getChannel() != null) {
+            host.setSoTimeout(parkMillis);
+            client.setSoTimeout(parkMillis);
+        }
+        hostWire = Wire.create(protocol, host, cols);
+        clientWire = Wire.create(protocol, client, cols);
+        turnStart = System.nanoTime();
+        return true;
+    }
+
+    // The attacker's message: a move is relayed to the defender, and in an authoritative session checked first and
+    // answered with the engine's result straight away
+    private int onMove(int kind, Wire attacker, Wire defender) throws IOException {
+        if (kind != Wire.MOVE) {
+            // Unreadable, or in an authoritative session answering a move nobody made
+            if (kind == Wire.INVALID || engine != null && kind == Wire.RESULT) server.violation();
+            disconnect(defender);
+            return ENDED;
+        }
+        Coordinate move = attacker.lastMove();
+        if (engine != null) {
+            expected = engine.fire(hostTurn ? 0 : 1, move.row, move.col);
+            if (expected < 0) {
+                server.violation();
+                disconnect(defender);
+                return ENDED;
+            }
+        }
+        defender.sendMove(move);
+        defender.flush();
+        if (engine != null) {
+            attacker.sendResult(MatchEngine.resultName(expected));
+            attacker.flush();
+        }
+        moveSent = System.nanoTime();
+        awaitingAnswer = true;
+        return PLAYING;
+    }
+
+    // The defender's message: its answer goes back to the attacker, or in an authoritative session must match the
+    // engine's, since a different result means a board that isn't the fleet it declared
+    private int onAnswer(int kind, Wire attacker, Wire defender) throws IOException {
+        if (engine != null) {
+            if (kind != Wire.RESULT || !defender.lastResult().equals(MatchEngine.resultName(expected))) {
+                // A move here is out of turn
+                if (kind == Wire.MOVE || kind == Wire.RESULT || kind == Wire.INVALID) server.violation();
+                disconnect(attacker);
+                return ENDED;
+            }
+            if (Metrics.ENABLED) Metrics.TURN.record(System.nanoTime() - turnStart);
+            if (expected == BinaryWire.WIN_CODE) return COMPLETED;
+        } else {
+            if (kind != Wire.RESULT) {
+                if (kind == Wire.INVALID) server.violation();
+                disconnect(attacker);
+                return ENDED;
+            }
+            String result = defender.lastResult();
+            attacker.sendResult(result);
+            attacker.flush();
+            if (Metrics.ENABLED) {
+                long now = System.nanoTime();
+                Metrics.ROUND_TRIP.record(now - moveSent);
+                Metrics.TURN.record(now - turnStart);
+            }
+            if (result.equals("WIN")) return COMPLETED;
+        }
+        awaitingAnswer = false;
+        hostTurn = !hostTurn; // Switch turns
+        turnStart = System.nanoTime();
+        return PLAYING;
+    }
+
+    // The socket of the player a parked session is waiting to hear from
+    SocketChannel waitingOn() {
+        return (hostTurn != awaitingAnswer ? host : client).getChannel();
+    }
+
+    // End a parked session without resuming it, when the server shuts down
+    void abandon() {
+        finish(false);
+    }
+
+    // Close both connections and hand the buffers back
+    private void finish(boolean completed) {
+        if (hostWire != null) {
+            hostWire.park();
+            clientWire.park();
+        }
+        for (Socket socket : new Socket[] {host, client}) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Nothing more to do with it
+            }
+        }
+        server.sessionEnded(completed);
+    }
+
+    // Tell the remaining player their opponent has gone
+    private static void disconnect(Wire wire) throws IOException {
+        wire.sendDisconnect();
+        wire.flush();
+    }
+}
@@ -0,0 +1,586 @@
+package com.battleship;
+
+// This class MatchStore keeps every finished match in a directory of plain files, so results outlive the game that
+// played them and can be summed up later without a database. Where GameLog records every event of a game as it
+// happens, the store holds one fixed-width record per match, written when the match ends, with its moves kept aside.
+//
+// Files (little-endian):
+//   matches.bin  32 byte header: int magic "BSMS", int version, long matches, long bytes used in moves.bin, 8 unused;
+//                then one 48 byte record per match:
+//                  long time ended (epoch ms), long seed (0 if unknown), long offset of its moves in moves.bin,
+//                  int player 0, int player 1, int player 0's previous match, int player 1's previous match (-1: none),
+//                  int config, int shots << 1 | winner
+//   moves.bin    per match: a byte saying whose fleets follow (bit 0 player 0's, bit 1 player 1's), their layout
+//                entries as FleetGenerator writes them, then each shot as cell << 1 | player; all varints
+//   names.txt    player names and config strings, one per line; a record refers to them by line number
+//   players.idx  int per name: that player's newest match + 1 (0: none)
+//
+// Two indexes come for free. Matches are stored in time order (a clock stepping back is clamped), so the matches of a
+// date range are a run of records found by binary search. Each record links to the previous match of both its players,
+// so a player's matches are a chain walked from players.idx, newest first. Summaries read only the few ints they need
+// from memory-mapped records, so millions of matches are summed up without decoding any of them or their moves.
+//
+// A store is written by one process at a time (the writer holds a lock on matches.bin), and records are buffered and
+// written out on flush() or close(). A flush writes players.idx before the header, so a process that dies between the
+// two leaves an index pointing at matches the header doesn't count; opening the store notices and rebuilds the index
+// from the records, so the next matches don't reuse those numbers with a stale chain.
+// With -Dbattleship.store=<dir>, LocalGame and NetworkedGame add every game they finish.
+// Run with: mvn exec:java -Dexec.mainClass=com.battleship.MatchStore -Dexec.args="..."
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+
+public final class MatchStore implements Closeable {
+    static final int RECORD_SIZE = 48;
+    private static final int HEADER_SIZE = 32;
+    private static final int MAGIC = 0x534D5342; // "BSMS" read little-endian
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int RECORDS_PER_REGION = 1 << 16; // Records mapped at a time when reading
+
+    private static final String MATCHES = "matches.bin";
+    private static final String MOVES = "moves.bin";
+    private static final String NAMES = "names.txt";
+    private static final String PLAYERS = "players.idx";
+
+    private final Path dir;
+    private final FileChannel matches;
+    private final FileChannel moves;
+    private final FileLock lock;
+    private final BufferedWriter names;
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private int[] newest;           // newest[name]: the player's newest match + 1, 0 for none
+    private final ByteBuffer records = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private ByteBuffer blobs = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private long count;             // Matches stored, including those still buffered
+    private long written;           // Matches in matches.bin
+    private long movesEnd;          // Bytes of moves, including those still buffered
+    private long movesWritten;      // Bytes in moves.bin
+    private long lastTime;
+
+    private MatchStore(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+        matches = FileChannel.open(dir.resolve(MATCHES), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        lock = matches.lock();
+        moves = FileChannel.open(dir.resolve(MOVES), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        if (matches.read(header, 0) == HEADER_SIZE) {
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                lock.release();
+                moves.close();
+                matches.close();
+                throw new IOException("Not a version " + VERSION + " match store: " + dir);
+            }
+            count = written = header.getLong(8);
+            movesEnd = movesWritten = header.getLong(16);
+        }
+        if (count > 0) {
+            ByteBuffer time = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            matches.read(time, HEADER_SIZE + (count - 1) * RECORD_SIZE);
+            lastTime = time.getLong(0);
+        }
+        List<String> known = readNames(dir);
+        for (int i = 0; i < known.size(); i++) nameIds.put(known.get(i), i);
+        newest = Arrays.copyOf(checkNewest(readNewest(dir), known.size(), count, matches), Math.max(16, known.size()));
+        names = Files.newBufferedWriter(dir.resolve(NAMES), StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+    }
+
+    // Open a store for adding matches, creating the directory if needed; blocks while another process has it open
+    public static MatchStore open(Path dir) throws IOException {
+        return new MatchStore(dir);
+    }
+
+    // Open the store named by -Dbattleship.store, or null if storing is off
+    public static MatchStore fromSystemProperty() throws IOException {
+        String path = System.getProperty("battleship.store");
+        return path == null || path.isEmpty() ? null : open(Paths.get(path));
+    }
+
+    // Store a match that just ended and return its number
+    public long add(String player0, String player1, GameConfig config, long seed, int[] layout0, int[] layout1,
+                    int[] shots, int shotCount, int winner) throws IOException {
+        return add(System.currentTimeMillis(), player0, player1, config, seed, layout0, layout1, shots, shotCount,
+                winner);
+    }
+
+    // Store a match that ended at time. shots[i] is the i-th shot as cell << 1 | player; a null layout is a fleet that
+    // isn't known, such as the opponent's in a networked game.
+    public long add(long time, String player0, String player1, GameConfig config, long seed, int[] layout0,
+                    int[] layout1, int[] shots, int shotCount, int winner) throws IOException {
+        int fleet = config.fleet().length;
+        int maxBlob = 1 + 5 * (2 * fleet + shotCount);
+        if (records.remaining() < RECORD_SIZE || blobs.remaining() < maxBlob) flush();
+        if (blobs.capacity() < maxBlob) blobs = ByteBuffer.allocate(maxBlob).order(ByteOrder.LITTLE_ENDIAN);
+
+        long offset = movesEnd;
+        int start = blobs.position();
+        blobs.put((byte) ((layout0 != null ? 1 : 0) | (layout1 != null ? 2 : 0)));
+        if (layout0 != null) for (int i = 0; i < fleet; i++) GameSnapshot.putVarint(blobs, layout0[i]);
+        if (layout1 != null) for (int i = 0; i < fleet; i++) GameSnapshot.putVarint(blobs, layout1[i]);
+        for (int i = 0; i < shotCount; i++) GameSnapshot.putVarint(blobs, shots[i]);
+        movesEnd += blobs.position() - start;
+
+        long match = count++;
+        int p0 = nameId(player0);
+        int p1 = nameId(player1);
+        lastTime = Math.max(lastTime, time); // Keeps records in time order for the date lookups
+        records.putLong(lastTime).putLong(seed).putLong(offset);
+        records.putInt(p0).putInt(p1).putInt(newest[p0] - 1).putInt(newest[p1] - 1);
+        records.putInt(nameId(config.toString())).putInt(shotCount << 1 | winner);
+        newest[p0] = (int) match + 1;
+        newest[p1] = (int) match + 1;
+        return match;
+    }
+
+    // Matches in the store
+    public long matches() {
+        return count;
+    }
+
+    // Write out everything added so far. The header goes last, so a reader never sees a match that isn't all there.
+    public void flush() throws IOException {
+        records.flip();
+        while (records.hasRemaining()) matches.write(records, HEADER_SIZE + written * RECORD_SIZE + records.position());
+        records.clear();
+        blobs.flip();
+        while (blobs.hasRemaining()) moves.write(blobs, movesWritten + blobs.position());
+        blobs.clear();
+        names.flush();
+        ByteBuffer index = ByteBuffer.allocate(4 * nameIds.size()).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < nameIds.size(); i++) index.putInt(newest[i]);
+        index.flip();
+        try (FileChannel players = FileChannel.open(dir.resolve(PLAYERS), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE)) {
+            while (index.hasRemaining()) players.write(index, index.position());
+        }
+        written = count;
+        movesWritten = movesEnd;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putLong(written).putLong(movesWritten).flip();
+        while (header.hasRemaining()) matches.write(header, header.position());
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            names.close();
+        } finally {
+            lock.release();
+            moves.close();
+            matches.close();
+        }
+    }
+
+    private int nameId(String name) throws IOException {
+        Integer id = nameIds.get(name);
+        if (id != null) return id;
+        if (name.indexOf('\n') >= 0 || name.indexOf('\r') >= 0) throw new IllegalArgumentException("Bad name: " + name);
+        int next = nameIds.size();
+        nameIds.put(name, next);
+        if (next == newest.length) newest = Arrays.copyOf(newest, next * 2);
+        names.write(name);
+        names.newLine();
+        return next;
+    }
+
+    private static List<String> readNames(Path dir) throws IOException {
+        Path file = dir.resolve(NAMES);
+        return Files.exists(file) ? Files.readAllLines(file, StandardCharsets.UTF_8) : new ArrayList<>();
+    }
+
+    private static int[] readNewest(Path dir) throws IOException {
+        Path file = dir.resolve(PLAYERS);
+        if (!Files.exists(file)) return new int[0];
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        int[] newest = new int[bytes.remaining() / 4];
+        for (int i = 0; i < newest.length; i++) newest[i] = bytes.getInt();
+        return newest;
+    }
+
+    // The index as read, unless an entry points past the last of the count stored matches: then it is rebuilt from
+    // the records, with one entry for each of the players named
+    private static int[] checkNewest(int[] newest, int players, long count, FileChannel matches) throws IOException {
+        for (int m : newest) {
+            if (m > count) return rebuildNewest(players, count, matches);
+        }
+        return newest;
+    }
+
+    // Every player's newest match + 1, read from the player ids of the records in order
+    private static int[] rebuildNewest(int players, long count, FileChannel matches) throws IOException {
+        int[] newest = new int[players];
+        ByteBuffer chunk = ByteBuffer.allocate(BUFFER_SIZE / RECORD_SIZE * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        for (long m = 0; m < count; ) {
+            int n = (int) Math.min(chunk.capacity() / RECORD_SIZE, count - m);
+            long at = HEADER_SIZE + m * RECORD_SIZE;
+            chunk.clear().limit(n * RECORD_SIZE);
+            while (chunk.hasRemaining()) {
+                if (matches.read(chunk, at + chunk.position()) < 0) throw new EOFException("Match store ends early");
+            }
+            for (int i = 0; i < n; i++, m++) {
+                newest[chunk.getInt(i * RECORD_SIZE + 24)] = (int) m + 1;
+                newest[chunk.getInt(i * RECORD_SIZE + 28)] = (int) m + 1;
+            }
+        }
+        return newest;
+    }
+
+    // === Reading ===
+
+    // Totals over a set of matches. For a player, wins are theirs; otherwise they are player 0's.
+    public static final class Summary {
+        public long games;
+        public long wins;
+        public long shots;
+
+        public double winRate() {
+            return games == 0 ? 0 : (double) wins / games;
+        }
+
+        public double averageShots() {
+            return games == 0 ? 0 : (double) shots / games;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d games, %.1f%% won, %.1f shots per game", games, 100 * winRate(), averageShots());
+        }
+    }
+
+    // Receives matches from history(), newest first; winner and the players are 0 or 1, as stored
+    public interface Visitor {
+        void match(long match, long time, String player0, String player1, String config, long seed, int shots,
+                   int winner);
+    }
+
+    // The matches that ended in [from, to) (epoch ms), or only player's among them if player isn't null
+    public static Summary summarize(Path dir, String player, long from, long to) throws IOException {
+        try (Reader reader = new Reader(dir)) {
+            Summary summary = new Summary();
+            if (player != null) {
+                int id = reader.nameId(player);
+                for (long m = reader.newest(id); m >= 0; m = reader.previous(m, id)) {
+                    long time = reader.time(m);
+                    if (time < from) break; // The chain runs back in time
+                    if (time >= to) continue;
+                    int outcome = reader.outcome(m);
+                    summary.games++;
+                    summary.shots += outcome >>> 1;
+                    if ((outcome & 1) == (reader.player(m, 0) == id ? 0 : 1)) summary.wins++;
+                }
+            } else {
+                for (long m = reader.firstAtOrAfter(from), end = reader.firstAtOrAfter(to); m < end; m++) {
+                    int outcome = reader.outcome(m);
+                    summary.games++;
+                    summary.shots += outcome >>> 1;
+                    if ((outcome & 1) == 0) summary.wins++;
+                }
+            }
+            return summary;
+        }
+    }
+
+    // Games, wins and shots of every player over the whole store, indexed by name; names() gives who is who
+    public static long[][] playerTotals(Path dir) throws IOException {
+        try (Reader reader = new Reader(dir)) {
+            int players = reader.names.size();
+            long[][] totals = new long[3][players];
+            for (long m = 0; m < reader.count; m++) {
+                int outcome = reader.outcome(m);
+                for (int side = 0; side < 2; side++) {
+                    int id = reader.player(m, side);
+                    totals[0][id]++;
+                    totals[2][id] += outcome >>> 1;
+                    if ((outcome & 1) == side) totals[1][id]++;
+                }
+            }
+            return totals;
+        }
+    }
+
+    public static List<String> names(Path dir) throws IOException {
+        return readNames(dir);
+    }
+
+    // Visit a player's last limit matches, newest first
+    public static void history(Path dir, String player, int limit, Visitor visitor) throws IOException {
+        try (Reader reader = new Reader(dir)) {
+            int id = reader.nameId(player);
+            long m = reader.newest(id);
+            for (int n = 0; n < limit && m >= 0; n++, m = reader.previous(m, id)) {
+                int outcome = reader.outcome(m);
+                visitor.match(m, reader.time(m), reader.names.get(reader.player(m, 0)),
+                        reader.names.get(reader.player(m, 1)), reader.names.get(reader.config(m)), reader.seed(m),
+                        outcome >>> 1, outcome & 1);
+            }
+        }
+    }
+
+    // The moves of a match: both layouts (null where unknown) and the shots, as they were added
+    public static int[][] moves(Path dir, long match) throws IOException {
+        try (Reader reader = new Reader(dir);
+             FileChannel moves = FileChannel.open(dir.resolve(MOVES), StandardOpenOption.READ)) {
+            if (match < 0 || match >= reader.count) throw new IllegalArgumentException("No match " + match);
+            int fleet = GameConfig.parse(reader.names.get(reader.config(match))).fleet().length;
+            int shots = reader.outcome(match) >>> 1;
+            long offset = reader.movesAt(match);
+            long end = match + 1 < reader.count ? reader.movesAt(match + 1) : reader.movesEnd;
+            ByteBuffer blob = ByteBuffer.allocate((int) (end - offset)).order(ByteOrder.LITTLE_ENDIAN);
+            while (blob.hasRemaining() && moves.read(blob, offset + blob.position()) > 0) {
+                // Keep reading until the match's bytes are all in
+            }
+            blob.flip();
+            int known = blob.get();
+            int[][] result = new int[3][];
+            for (int p = 0; p < 2; p++) {
+                if ((known & 1 << p) == 0) continue;
+                result[p] = new int[fleet];
+                for (int i = 0; i < fleet; i++) result[p][i] = GameSnapshot.getVarint(blob);
+            }
+            result[2] = new int[shots];
+            for (int i = 0; i < shots; i++) result[2][i] = GameSnapshot.getVarint(blob);
+            return result;
+        }
+    }
+
+    // Random access to the records of a store, mapped a region at a time as they are touched
+    private static final class Reader implements Closeable {
+        final List<String> names;
+        final long count;
+        final long movesEnd;
+        private final Path dir;
+        private final FileChannel channel;
+        private final MappedByteBuffer[] regions;
+        private int[] newest;
+
+        Reader(Path dir) throws IOException {
+            this.dir = dir;
+            this.channel = FileChannel.open(dir.resolve(MATCHES), StandardOpenOption.READ);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (channel.read(header, 0) != HEADER_SIZE || header.getInt(0) != MAGIC) {
+                channel.close();
+                throw new IOException("Not a match store: " + dir);
+            }
+            count = header.getLong(8);
+            movesEnd = header.getLong(16);
+            names = readNames(dir);
+            regions = new MappedByteBuffer[(int) ((count + RECORDS_PER_REGION - 1) / RECORDS_PER_REGION)];
+        }
+
+        int nameId(String name) {
+            int id = names.indexOf(name);
+            if (id < 0) throw new IllegalArgumentException("No player " + name);
+            return id;
+        }
+
+        // The player's newest match, -1 if none
+        long newest(int id) throws IOException {
+            if (newest == null) newest = checkNewest(readNewest(dir), names.size(), count, channel);
+            return id < newest.length ? newest[id] - 1L : -1;
+        }
+
+        // The match before m that player id played, -1 if none
+        long previous(long m, int id) {
+            return record(m).getInt(slot(m) + (player(m, 0) == id ? 32 : 36));
+        }
+
+        // The first match that ended at or after time, count if none
+        long firstAtOrAfter(long time) {
+            long lo = 0;
+            long hi = count;
+            while (lo < hi) {
+                long mid = (lo + hi) >>> 1;
+                if (time(mid) < time) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        long time(long m) {
+            return record(m).getLong(slot(m));
+        }
+
+        long seed(long m) {
+            return record(m).getLong(slot(m) + 8);
+        }
+
+        long movesAt(long m) {
+            return record(m).getLong(slot(m) + 16);
+        }
+
+        int player(long m, int side) {
+            return record(m).getInt(slot(m) + 24 + 4 * side);
+        }
+
+        int config(long m) {
+            return record(m).getInt(slot(m) + 40);
+        }
+
+        int outcome(long m) {
+            return record(m).getInt(slot(m) + 44);
+        }
+
+        private static int slot(long m) {
+            return (int) (m % RECORDS_PER_REGION) * RECORD_SIZE;
+        }
+
+        private MappedByteBuffer record(long m) {
+            int r = (int) (m / RECORDS_PER_REGION);
+            MappedByteBuffer region = regions[r];
+            if (region == null) {
+                long first = (long) r * RECORDS_PER_REGION;
+                long records = Math.min(RECORDS_PER_REGION, count - first);
+                try {
+                    region = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * RECORD_SIZE,
+                            records * RECORD_SIZE);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Could not map match records", e);
+                }
+                region.order(ByteOrder.LITTLE_ENDIAN);
+                regions[r] = region;
+            }
+            return region;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    // Commands:
+    //   simulate <dir> <games> [players] [seed]   store games between that many bots, stamped a minute apart
+    //   stats <dir> [player|-] [from] [to]        win rate and shots per game; dates are yyyy-mm-dd, to inclusive
+    //   history <dir> <player> [n]                a player's last n matches
+    //   players <dir> [n]                         the n players with the most games
+    //   moves <dir> <match>                       the fleets and shots of one match
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: simulate <dir> <games> [players] [seed] | stats <dir> [player|-] [from] [to]"
+                    + " | history <dir> <player> [n] | players <dir> [n] | moves <dir> <match>");
+            return;
+        }
+        Path dir = Paths.get(args[1]);
+        long start = System.nanoTime();
+        switch (args[0]) {
+            case "simulate":
+                simulate(dir, Integer.parseInt(args[2]), args.length > 3 ? Integer.parseInt(args[3]) : 1000,
+                        args.length > 4 ? Long.parseLong(args[4]) : 42L);
+                break;
+            case "stats": {
+                String player = args.length > 2 && !args[2].equals("-") ? args[2] : null;
+                long from = args.length > 3 ? startOfDay(LocalDate.parse(args[3])) : Long.MIN_VALUE;
+                long to = args.length > 4 ? startOfDay(LocalDate.parse(args[4]).plusDays(1)) : Long.MAX_VALUE;
+                Summary summary = summarize(dir, player, from, to);
+                System.out.println((player != null ? player : "First player") + ": " + summary);
+                break;
+            }
+            case "history": {
+                int limit = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+                String player = args[2];
+                history(dir, player, limit, (match, time, p0, p1, config, seed, shots, winner) ->
+                        System.out.printf("#%d %s %s vs %s (%s): %s won in %d shots, seed %d%n", match,
+                                Instant.ofEpochMilli(time), p0, p1, config, winner == 0 ? p0 : p1, shots, seed));
+                break;
+            }
+            case "players": {
+                int limit = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+                List<String> names = names(dir);
+                long[][] totals = playerTotals(dir);
+                Integer[] order = new Integer[names.size()];
+                for (int i = 0; i < order.length; i++) order[i] = i;
+                Arrays.sort(order, (a, b) -> Long.compare(totals[0][b], totals[0][a]));
+                for (int i = 0; i < Math.min(limit, order.length) && totals[0][order[i]] > 0; i++) {
+                    int id = order[i];
+                    System.out.printf("%-20s %,9d games %5.1f%% won %6.1f shots per game%n", names.get(id),
+                            totals[0][id], 100.0 * totals[1][id] / totals[0][id],
+                            (double) totals[2][id] / totals[0][id]);
+                }
+                break;
+            }
+            case "moves": {
+                int[][] moves = moves(dir, Long.parseLong(args[2]));
+                for (int p = 0; p < 2; p++) {
+                    System.out.println("Player " + p + "'s fleet: " + (moves[p] == null ? "unknown"
+                            : MatchEngine.fleetLine(moves[p]).substring(MatchEngine.FLEET.length() + 1)));
+                }
+                StringBuilder shots = new StringBuilder();
+                for (int shot : moves[2]) shots.append(shot & 1).append(':').append(shot >>> 1).append(' ');
+                System.out.println("Shots (player:cell): " + shots.toString().trim());
+                break;
+            }
+            default:
+                System.out.println("Unknown command: " + args[0]);
+                return;
+        }
+        System.out.printf("(%.3f s)%n", (System.nanoTime() - start) / 1e9);
+    }
+
+    private static long startOfDay(LocalDate day) {
+        return day.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // Bots bot-0 .. bot-(players-1) paired at random; every fourth one fires at random, the rest hunt and target.
+    // Games are stamped a minute apart, ending now, so date ranges have something to find.
+    private static void simulate(Path dir, int games, int players, long seed) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        GameConfig config = GameConfig.STANDARD;
+        int[] fleet = config.fleet();
+        FleetGenerator generator = new FleetGenerator(config);
+        TargetingStrategy[][] strategies = { // [player][0 random, 1 hunt and target]
+                {new RandomStrategy(), new HuntTargetStrategy()}, {new RandomStrategy(), new HuntTargetStrategy()}};
+        int[][] layouts = new int[2][fleet.length];
+        Board[] boards = new Board[2];
+        int[] shots = new int[2 * config.cells()];
+        long now = System.currentTimeMillis();
+        try (MatchStore store = open(dir)) {
+            for (int g = 0; g < games; g++) {
+                int[] bots = {random.nextInt(players), random.nextInt(players)};
+                if (bots[0] == bots[1] && players > 1) bots[1] = (bots[1] + 1) % players; // No one plays themself
+                for (int p = 0; p < 2; p++) {
+                    generator.generate(layouts[p], random);
+                    boards[p] = new Board(config.rows(), config.cols());
+                    for (int i = 0; i < fleet.length; i++) {
+                        boards[p].placeShip(generator.toShip(layouts[p][i], fleet[i]));
+                    }
+                    strategies[p][bots[p] % 4 == 0 ? 0 : 1].reset(config.rows(), config.cols(), fleet, random);
+                }
+                int count = 0;
+                int player = 0;
+                while (true) {
+                    TargetingStrategy shooter = strategies[player][bots[player] % 4 == 0 ? 0 : 1];
+                    int cell = shooter.nextShot();
+                    shots[count++] = cell << 1 | player;
+                    Board target = boards[player ^ 1];
+                    String result = target.attack(cell / config.cols(), cell % config.cols());
+                    if (target.allShipsSunk()) break;
+                    shooter.onResult(cell, result);
+                    player ^= 1;
+                }
+                store.add(now - (long) (games - g) * 60_000, "bot-" + bots[0], "bot-" + bots[1], config, 0,
+                        layouts[0], layouts[1], shots, count, player);
+            }
+            System.out.printf("Stored %,d games (%,d in the store)%n", games, store.matches());
+        }
+    }
+}
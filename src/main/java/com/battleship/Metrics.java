@@ -0,0 +1,208 @@
+package com.battleship;
+
+// This class Metrics is the in-process registry of counters and latency histograms for games and servers. It is off
+// unless the JVM runs with -Dbattleship.metrics=true; ENABLED is a static final flag, so the checks on the hot paths
+// (Board.attack, every wire read and write) compile away when it is off.
+// When on, start() publishes every metric over JMX (domain com.battleship, visible in jconsole or any JMX agent) and
+// prints a text dump to stderr every -Dbattleship.metricsDumpSeconds (default 10; 0 turns the dump off).
+//
+// Built-in metrics:
+//   turn               from the prompt of our turn (or the attacker's turn, on a server) to the result arriving
+//   rtt                from a move leaving to its result coming back
+//   board.attack       resolving one attack inside Board
+//   net.bytesSent      bytes written to game sockets after the handshake
+//   net.bytesReceived  bytes read from game sockets after the handshake
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public final class Metrics {
+    public static final boolean ENABLED = Boolean.getBoolean("battleship.metrics");
+
+    private static final Map<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+    private static final Map<String, LatencyHistogram> histograms = new ConcurrentSkipListMap<>();
+    private static MBeanServer jmx; // Set once start() has run
+
+    public static final LatencyHistogram TURN = histogram("turn");
+    public static final LatencyHistogram ROUND_TRIP = histogram("rtt");
+    public static final LatencyHistogram BOARD_ATTACK = histogram("board.attack");
+    public static final LongAdder BYTES_SENT = counter("net.bytesSent");
+    public static final LongAdder BYTES_RECEIVED = counter("net.bytesReceived");
+
+    private Metrics() {
+    }
+
+    // The counter with this name, created on first use. Look it up once and keep it; recording is the cheap part.
+    public static synchronized LongAdder counter(String name) {
+        LongAdder counter = counters.get(name);
+        if (counter == null) {
+            counter = new LongAdder();
+            counters.put(name, counter);
+            publish("Counter", name, new CounterView(counter));
+        }
+        return counter;
+    }
+
+    // The histogram with this name, created on first use
+    public static synchronized LatencyHistogram histogram(String name) {
+        LatencyHistogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = new LatencyHistogram();
+            histograms.put(name, histogram);
+            publish("Histogram", name, new HistogramView(histogram));
+        }
+        return histogram;
+    }
+
+    // Publish the metrics over JMX and start the periodic dump, if metrics are on; later calls do nothing
+    public static synchronized void start() {
+        if (!ENABLED || jmx != null) return;
+        jmx = ManagementFactory.getPlatformMBeanServer();
+        counters.forEach((name, counter) -> publish("Counter", name, new CounterView(counter)));
+        histograms.forEach((name, histogram) -> publish("Histogram", name, new HistogramView(histogram)));
+        long seconds = Long.getLong("battleship.metricsDumpSeconds", 10);
+        if (seconds > 0) {
+            ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(GameServer.daemon("metrics-dump"));
+            dumper.scheduleAtFixedRate(() -> System.err.print(report()), seconds, seconds, TimeUnit.SECONDS);
+        }
+    }
+
+    // Every metric, one per line; histogram times are in microseconds
+    public static String report() {
+        StringBuilder sb = new StringBuilder("[metrics]\n");
+        counters.forEach((name, counter) -> sb.append(String.format("  %-18s %,d%n", name, counter.sum())));
+        histograms.forEach((name, h) -> sb.append(String.format(
+                "  %-18s n=%,d mean=%.1f p50=%.1f p99=%.1f p999=%.1f max=%.1f us%n", name, h.count(), h.mean() / 1e3,
+                h.percentile(0.5) / 1e3, h.percentile(0.99) / 1e3, h.percentile(0.999) / 1e3, h.max() / 1e3)));
+        return sb.toString();
+    }
+
+    // Wrap a socket's streams so the bytes they carry are counted, when metrics are on
+    static InputStream countReceived(InputStream in) {
+        if (!ENABLED) return in;
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) BYTES_RECEIVED.increment();
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n > 0) BYTES_RECEIVED.add(n);
+                return n;
+            }
+        };
+    }
+
+    static OutputStream countSent(OutputStream out) {
+        if (!ENABLED) return out;
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                BYTES_SENT.increment();
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len); // FilterOutputStream would otherwise write a byte at a time
+                BYTES_SENT.add(len);
+            }
+        };
+    }
+
+    private static void publish(String type, String name, Object view) {
+        if (jmx == null) return;
+        try {
+            ObjectName id = new ObjectName("com.battleship:type=" + type + ",name=" + ObjectName.quote(name));
+            if (!jmx.isRegistered(id)) jmx.registerMBean(view, id);
+        } catch (JMException e) {
+            System.err.println("Could not publish metric " + name + ": " + e.getMessage());
+        }
+    }
+
+    public interface CounterMXBean {
+        long getCount();
+    }
+
+    public interface HistogramMXBean {
+        long getCount();
+
+        double getMeanMicros();
+
+        double getP50Micros();
+
+        double getP99Micros();
+
+        double getP999Micros();
+
+        double getMaxMicros();
+    }
+
+    private static final class CounterView implements CounterMXBean {
+        private final LongAdder counter;
+
+        CounterView(LongAdder counter) {
+            this.counter = counter;
+        }
+
+        @Override
+        public long getCount() {
+            return counter.sum();
+        }
+    }
+
+    private static final class HistogramView implements HistogramMXBean {
+        private final LatencyHistogram histogram;
+
+        HistogramView(LatencyHistogram histogram) {
+            this.histogram = histogram;
+        }
+
+        @Override
+        public long getCount() {
+            return histogram.count();
+        }
+
+        @Override
+        public double getMeanMicros() {
+            return histogram.mean() / 1e3;
+        }
+
+        @Override
+        public double getP50Micros() {
+            return histogram.percentile(0.5) / 1e3;
+        }
+
+        @Override
+        public double getP99Micros() {
+            return histogram.percentile(0.99) / 1e3;
+        }
+
+        @Override
+        public double getP999Micros() {
+            return histogram.percentile(0.999) / 1e3;
+        }
+
+        @Override
+        public double getMaxMicros() {
+            return histogram.max() / 1e3;
+        }
+    }
+}
@@ -2,216 +2,761 @@ package com.battleship;
 
 // Like Game.java, this class holds the logic for the battleship game. Its inputs are now dependent on socket rather than scanner, since we 
 // will be taking TCP packets as inputs. Based on StartGame, the user will either be a host or client, which both have different roles.
+// The turn loop is a small state machine fed by one event queue. A console thread and a socket thread each block on
+// their own stream and post what they read, so a disconnect, a protocol error or EXIT is handled the moment it arrives,
+// whoever's turn it is. The game's state lives in a GameSnapshot that is brought up to date before anything is sent.
 
 import java.io.*;
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 public class NetworkedGame {
     public enum Role { HOST, CLIENT }
 
+    private enum State { CHOOSING_TARGET, AWAITING_RESULT, OPPONENT_TURN, OVER }
+
+    /** Something the turn loop has to react to, posted by the reader threads */
+    private static final class Event {
+        static final int CONSOLE = 1;    // text is the line typed
+        static final int MOVE = 2;       // move is the opponent's shot
+        static final int RESULT = 3;     // text is the result of our shot
+        static final int DISCONNECT = 4; // The opponent left the game
+        static final int CLOSED = 5;     // The connection ended without a goodbye
+        static final int TIMEOUT = 6;    // Nothing heard from the opponent within the timeout
+        static final int ERROR = 7;
+        static final int INVALID = 8;    // The opponent sent something that isn't a message
+
+        final int kind;
+        final String text;
+        final Coordinate move;
+        final Wire source;               // Connection a socket event came from; null for console lines
+
+        Event(int kind, String text, Coordinate move, Wire source) {
+            this.kind = kind;
+            this.text = text;
+            this.move = move;
+            this.source = source;
+        }
+    }
+
+    private static final String PROMPT = "Enter attack (e.g., B4) or type EXIT: ";
+    private static final long RECONNECT_PAUSE_MILLIS = 250;
+
     private final Role role;
-    private final Socket socket;
+    private Socket socket;
+    private final GameConfig config;
     private final Board myBoard;
     private final Board opponentBoard;
-    private final BufferedReader in;
-    private final PrintWriter out;
-    private final Scanner scanner;
-    private final Set<Coordinate> attackHistory = new HashSet<>();
+    private final String protocol;
+    private Wire wire;
+    private ConsoleIO console = ConsoleIO.system();
+    // With -Dbattleship.ansi=true both boards stay put on the screen and only the cells that changed are redrawn
+    private final boolean ansi = Boolean.getBoolean("battleship.ansi");
+    private final BoardRenderer myView;
+    private final BoardRenderer opponentView;
+    private final StringBuilder frame = new StringBuilder();
+    private boolean screenDrawn;
+    private GameLog log; // Null unless -Dbattleship.log is set
+    private SpectatorHub spectators; // Null unless -Dbattleship.spectatorPort is set
+    private int game;
+    private int turn;
+    private final boolean heartbeat;  // Both peers agreed to send PING when idle
+    private final long heartbeatMillis = Long.getLong("battleship.heartbeatMillis", 500); // Silence before a PING
+    private final long timeoutMillis = Long.getLong("battleship.timeoutMillis", 2000); // Silence before peer is gone
+    private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+    private final Deque<String> typedAhead = new ArrayDeque<>(); // Lines typed before our turn came
+    private final Deque<Coordinate> pending = new ArrayDeque<>(); // Our shots waiting for their results, oldest first
+    private final int salvo;               // Shots per turn, 1 for the classic game
+    private final int[] aimed;             // Cells picked so far for the salvo we are putting together
+    private int aimedCount;
+    private int shotsToAim;                // Size of our current salvo
+    private int shotsDue;                  // Shots of the opponent's salvo still to come, 0 between salvos
+    private long nextPingNanos;
+    private volatile boolean closing;
+    private final GameSnapshot snapshot;   // The whole game as of the last turn
+    private final int resumedPeerTurns;    // Turns the opponent had played when a saved game was resumed, -1 otherwise
+    private final ServerSocket listener;   // Where a host takes a dropped client back; null if it can't
+    private final SocketAddress peer;      // Where a client reconnects to
+    private final long resumeMillis = Long.getLong("battleship.resumeMillis", 30000); // How long a drop is waited out
+    private FileChannel snapshotFile;      // Null unless -Dbattleship.snapshot is set
+    private ByteBuffer snapshotBytes;
+    private long turnStartNanos;           // When our current turn began, 0 if we didn't see it begin
+    private long moveSentNanos;            // When our pending shot went out, 0 if we didn't send it
+    private SplittableRandom random;       // Every random choice we make, drawn from the game's seed
+    private long seed = GameSeed.fresh();
+    private boolean declareFleet;          // Send our fleet to the GameServer, which plays the game authoritatively
+    private int[] shots;                   // Every shot as cell << 1 | player (the host is 0), for the MatchStore
+    private int shotCount;
 
     public NetworkedGame(Role role, Socket socket) throws IOException {
+        this(role, socket, false, GameConfig.STANDARD);
+    }
+
+    public NetworkedGame(Role role, Socket socket, boolean preferBinary, GameConfig config) throws IOException {
+        this(role, socket, preferBinary, config, null);
+    }
+
+    // preferBinary asks for the binary wire protocol; it is only used if the peer asks for it too.
+    // config is the board and fleet to propose as host; a client plays whatever the host proposed.
+    // listener is the host's listening socket, which lets a dropped client come back; null if the game can't resume.
+    public NetworkedGame(Role role, Socket socket, boolean preferBinary, GameConfig config, ServerSocket listener)
+            throws IOException {
+        this(role, socket, listener, negotiate(role, socket, preferBinary, config, listener), -1);
+    }
+
+    // Carry on a game a previous run saved with -Dbattleship.snapshot, over a new connection to the same opponent.
+    // The client connects and the host accepts on its port, as when the game started.
+    public NetworkedGame(Socket socket, GameSnapshot saved, ServerSocket listener) throws IOException {
+        this(saved.host ? Role.HOST : Role.CLIENT, socket, listener, saved,
+                Handshake.resume(socket, saved.host ? Role.HOST : Role.CLIENT, saved.session, saved.turns));
+    }
+
+    private NetworkedGame(Role role, Socket socket, ServerSocket listener, GameSnapshot snapshot, int resumedPeerTurns)
+            throws IOException {
         this.role = role;
         this.socket = socket;
-        this.myBoard = new Board();
-        this.opponentBoard = new Board(); // Used just for tracking hits/misses
-        this.in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-        this.out = new PrintWriter(socket.getOutputStream(), true);
-        this.scanner = new Scanner(System.in);
+        this.listener = listener;
+        this.peer = socket.getRemoteSocketAddress();
+        this.snapshot = snapshot;
+        this.resumedPeerTurns = resumedPeerTurns;
+        this.config = snapshot.config;
+        this.heartbeat = snapshot.heartbeat;
+        this.protocol = snapshot.binary ? Wire.BINARY : Wire.TEXT;
+        this.salvo = snapshot.salvo;
+        this.aimed = new int[salvo];
+        if (resumedPeerTurns < 0) {
+            this.myBoard = new Board(config.rows(), config.cols());
+            this.opponentBoard = new Board(config.rows(), config.cols()); // Used just for tracking hits/misses
+        } else {
+            this.myBoard = snapshot.restoreBoard();
+            this.opponentBoard = snapshot.restoreOpponentBoard();
+            if (snapshot.pending >= 0) pending.add(coordinateOf(snapshot.pending));
+        }
+        this.wire = Wire.create(protocol, socket, config.cols());
+        // In ANSI mode: title on row 1, my board from row 2, a blank row, title, then the opponent's board
+        int rows = this.config.rows();
+        this.myView = ansi ? BoardRenderer.incremental(2) : new BoardRenderer();
+        this.opponentView = ansi ? BoardRenderer.incremental(rows + 5) : new BoardRenderer();
     }
 
-    public void start() {
-        System.out.println("Setting up your board...");
-        placeShips(myBoard);
-
-        System.out.println("======================================");
-        System.out.println("BATTLESHIP STARTED");
-        System.out.println("Type coordinates to attack (e.g., B4)");
-        System.out.println("Type EXIT at any time to disconnect");
-        System.out.println("======================================\n");
+    /**
+     * Play a new game from this seed instead of a fresh one; call before start(). The seed is printed either way so
+     * that, with the same attacks, our side of the game can be played again exactly.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
 
-        boolean myTurn = (role == Role.HOST); // Host goes first
-        boolean gameOver = false;
+    /**
+     * Talk to the player through this console; call before start(). A scripted console's attacks are read as each of
+     * our turns begins instead of by the console thread, and the game ends when the script runs out.
+     */
+    public void setConsole(ConsoleIO console) {
+        this.console = console;
+    }
 
-        while (!gameOver) {
-            if (myTurn) {
-                // === YOUR TURN TO ATTACK ===
-                System.out.println("\nYour Board:");
-                myBoard.printBoard(true);
+    /** Tell an authoritative GameServer where our fleet is once it is placed; call before start() */
+    public void declareFleet() {
+        this.declareFleet = true;
+    }
 
-                System.out.println("\nOpponent Board (known hits/misses):");
-                opponentBoard.printBoard(false);
+    /**
+     * Run the handshake and start the snapshot of a new game. Heartbeats are offered unless
+     * -Dbattleship.heartbeatMillis=0, and a host that can take a dropped client back offers a session token unless
+     * -Dbattleship.resumeMillis=0. A host started with -Dbattleship.salvo=<k> proposes salvos of k shots a turn, sent
+     * and answered with one flush each; salvo games offer no session, so they end on a drop instead of resuming.
+     */
+    private static GameSnapshot negotiate(Role role, Socket socket, boolean preferBinary, GameConfig config,
+                                          ServerSocket listener) throws IOException {
+        boolean heartbeat = Long.getLong("battleship.heartbeatMillis", 500) > 0;
+        boolean resumable = role == Role.HOST && listener != null && Long.getLong("battleship.resumeMillis", 30000) > 0;
+        int salvo = Math.max(1, Integer.getInteger("battleship.salvo", 1));
+        resumable &= salvo == 1;
+        long session = resumable ? new SecureRandom().nextLong() | 1 : 0; // Never 0, which means no session
+        Handshake handshake = Handshake.negotiate(socket, role, preferBinary, heartbeat, config, session, salvo);
+        GameSnapshot snapshot = new GameSnapshot(handshake.config);
+        snapshot.session = handshake.session;
+        snapshot.host = role == Role.HOST;
+        snapshot.binary = handshake.protocol.equals(Wire.BINARY);
+        snapshot.heartbeat = handshake.heartbeat;
+        snapshot.salvo = handshake.salvo;
+        snapshot.phase = role == Role.HOST ? GameSnapshot.MY_TURN : GameSnapshot.OPPONENT_TURN; // Host goes first
+        return snapshot;
+    }
 
-                Coordinate target = getInputCoordinate();
+    public void start() {
+        boolean resumed = resumedPeerTurns >= 0;
+        if (resumed) {
+            console.println("Resuming the game (" + config + ") after " + snapshot.turns + " turns...");
+        } else {
+            console.println("Setting up your board (" + config + (salvo > 1 ? ", salvos of " + salvo : "") + ")...");
+            console.println(GameSeed.describe(seed));
+            random = new SplittableRandom(seed);
+            placeShips(myBoard);
+            snapshot.recordFleet(myBoard);
+            String store = System.getProperty("battleship.store");
+            if (store != null && !store.isEmpty()) shots = new int[2 * config.cells()];
+        }
+        openLog();
+        openSpectators();
+        openSnapshotFile();
 
-                // Send attack
-                out.println(serializeCoordinate(target));
+        console.println("======================================");
+        console.println("BATTLESHIP STARTED");
+        console.println("Type coordinates to attack (e.g., B4)");
+        console.println("Type EXIT at any time to disconnect");
+        console.println("======================================\n");
 
-                // Receive result
+        startReaders();
+        try {
+            if (declareFleet && !resumed) {
+                Wire.writeLine(socket.getOutputStream(), MatchEngine.fleetLine(snapshot.ships));
+            }
+            saveSnapshot();
+            State state = resumed ? catchUp(resumedPeerTurns)
+                    : role == Role.HOST ? beginMyTurn() : beginOpponentTurn(); // Host goes first
+            while (state != State.OVER) {
+                console.flush(); // Everything the last event printed, in one write
+                Event event = heartbeat
+                        ? events.poll(Math.max(0, nextPingNanos - System.nanoTime()), TimeUnit.NANOSECONDS)
+                        : events.take();
                 try {
-                    String result = in.readLine();
-                    if (result == null || result.equalsIgnoreCase("DISCONNECT")) {
-                        System.out.println("Opponent disconnected.");
-                        closeConnection();
-                        break;
-                    }
-
-                    System.out.println("Result: " + result);
-
-                    // Update opponent board
-                    if (result.equals("HIT") || result.equals("SUNK")) {
-                        opponentBoard.attack(target);
-                    } else if (result.equals("MISS")) {
-                        opponentBoard.attack(target);
-                    }
-
-                    if (result.equals("WIN")) {
-                        System.out.println("You win!");
-                        gameOver = true;
-                        closeConnection();
-                        continue;
-                    }
-
+                    state = event == null ? ping(state) : handle(state, event);
                 } catch (IOException e) {
-                    System.out.println("Connection lost.");
-                    closeConnection();
-                    break;
+                    state = reconnect("Connection lost.");
                 }
-            } else {
-                // === OPPONENT'S TURN ===
-                System.out.println("\nWaiting for opponent's move...");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            console.println("Connection lost.");
+        }
+        closeConnection();
+        console.flush();
+    }
 
-                try {
-                    String move = in.readLine();
-                    if (move == null || move.equalsIgnoreCase("DISCONNECT")) {
-                        System.out.println("Opponent disconnected.");
-                        closeConnection();
-                        break;
-                    }
-
-                    Coordinate coord = deserializeCoordinate(move);
-                    String result = myBoard.attack(coord);
-
-                    System.out.println("Opponent attacked " + move + ": " + result);
-
-                    // Send result back
-                    if (myBoard.allShipsSunk()) {
-                        out.println("WIN");
-                        System.out.println("You lost! All ships sunk.");
-                        gameOver = true;
-                        closeConnection();
-                        continue;
-                    } else {
-                        out.println(result);
-                    }
+    /** React to one event in the given state and return the next state */
+    private State handle(State state, Event event) throws IOException {
+        if (event.source != null && event.source != wire) return state; // From a connection we have since replaced
+        switch (event.kind) {
+            case Event.CONSOLE:
+                return onConsoleLine(state, event.text);
+            case Event.MOVE:
+                // Results of our salvo come before the opponent's first shot
+                if (state != State.OPPONENT_TURN || !pending.isEmpty()) return protocolError("moved out of turn");
+                return onOpponentMove(event.move);
+            case Event.RESULT:
+                if (pending.isEmpty()) return protocolError("sent a result nobody asked for");
+                return onResult(state, event.text);
+            case Event.DISCONNECT:
+                console.println("Opponent disconnected.");
+                return State.OVER;
+            case Event.CLOSED:
+                return reconnect("Connection to the opponent dropped.");
+            case Event.TIMEOUT:
+                return reconnect("Opponent stopped responding (nothing heard for " + timeoutMillis + " ms).");
+            case Event.INVALID:
+                return protocolError("sent a malformed message");
+            default:
+                return reconnect("Connection lost.");
+        }
+    }
 
-                } catch (IOException e) {
-                    System.out.println("Connection lost.");
-                    closeConnection();
-                    break;
+    // === YOUR TURN TO ATTACK ===
+    private State beginMyTurn() throws IOException {
+        turnStartNanos = System.nanoTime();
+        showBoards();
+        shotsToAim = Math.min(salvo, config.cells() - snapshot.shotsFired.size());
+        aimedCount = 0;
+        prompt();
+        // Lines typed while the opponent was moving are used as if typed now
+        State state = State.CHOOSING_TARGET;
+        while (state == State.CHOOSING_TARGET && !typedAhead.isEmpty()) {
+            state = onConsoleLine(state, typedAhead.poll());
+        }
+        // A script is read only when it is our turn, so its attacks line up with the turns they were recorded for
+        while (state == State.CHOOSING_TARGET && console.isScripted()) {
+            String line = console.readLine();
+            if (line == null) {
+                console.println("The script has no more attacks.");
+                line = "EXIT";
+            }
+            state = onConsoleLine(state, line);
+        }
+        return state;
+    }
+
+    // === OPPONENT'S TURN ===
+    private State beginOpponentTurn() {
+        console.println("\nWaiting for opponent's move...");
+        return State.OPPONENT_TURN;
+    }
+
+    /** A line from the console: EXIT works at any time, coordinates only when it is our turn */
+    private State onConsoleLine(State state, String line) throws IOException {
+        String input = line.trim().toUpperCase();
+        if (input.equals("EXIT")) {
+            send(() -> wire.sendDisconnect());
+            console.println("You exited the game.");
+            return State.OVER;
+        }
+        if (state != State.CHOOSING_TARGET) {
+            typedAhead.add(line);
+            return state;
+        }
+        // In a salvo game or a script a line may hold several coordinates; any left over once the salvo is full count
+        // towards our next turn
+        boolean several = salvo > 1 || console.isScripted();
+        int from = 0;
+        while (true) {
+            if (several) {
+                from = ConsoleIO.tokenStart(input, from);
+                if (from == input.length()) break;
+            }
+            int to = several ? ConsoleIO.tokenEnd(input, from) : input.length();
+            if (console.isScripted()) console.println(input.subSequence(from, to)); // Reads like the game played
+            int cell = BoardNotation.parseCell(input.subSequence(from, to), config.rows(), config.cols());
+            if (cell < 0) {
+                console.println("Invalid coordinate. Try again.");
+            } else if (snapshot.shotsFired.contains(cell) || isAimed(cell)) { // Shots fired double as the history
+                console.println("You already attacked that coordinate. Try again.");
+            } else {
+                aimed[aimedCount++] = cell;
+                if (aimedCount == shotsToAim) {
+                    if (ConsoleIO.tokenStart(input, to) < input.length()) typedAhead.addFirst(input.substring(to));
+                    return fireSalvo();
                 }
             }
+            if (!several) break;
+            from = to;
+        }
+        prompt();
+        return State.CHOOSING_TARGET;
+    }
 
-            // Switch turns
-            myTurn = !myTurn;
+    private boolean isAimed(int cell) {
+        for (int i = 0; i < aimedCount; i++) {
+            if (aimed[i] == cell) return true;
         }
+        return false;
     }
 
-    /** Randomly place standard ships on the board */
-    private void placeShips(Board board) {
-        int[] shipSizes = {5, 4, 3, 3, 2}; // Carrier, Battleship, Cruiser, Submarine, Destroyer
-
-        for (int size : shipSizes) {
-            boolean placed = false;
-            while (!placed) {
-                int row = new Random().nextInt(10);
-                int col = new Random().nextInt(10);
-                boolean horizontal = new Random().nextBoolean();
-
-                List<Coordinate> coords = new ArrayList<>();
-                for (int i = 0; i < size; i++) {
-                    int r = row + (horizontal ? 0 : i);
-                    int c = col + (horizontal ? i : 0);
-                    coords.add(new Coordinate(r, c));
-                }
+    private void prompt() {
+        if (salvo == 1) console.print(PROMPT);
+        else console.print("Salvo: enter " + (shotsToAim - aimedCount) + " more attack(s) (e.g., B4 C7) or EXIT: ");
+    }
 
-                Ship ship = new Ship(coords);
-                placed = board.placeShip(ship);
-            }
+    /** Send our whole salvo in one frame; in a salvo game the opponent's turn starts while its results are in flight */
+    private State fireSalvo() throws IOException {
+        for (int i = 0; i < aimedCount; i++) {
+            pending.add(coordinateOf(aimed[i]));
+            snapshot.shotsFired.add(aimed[i]);
         }
+        snapshot.pending = salvo == 1 ? aimed[0] : -1;
+        snapshot.phase = salvo == 1 ? GameSnapshot.AWAITING_RESULT : GameSnapshot.OPPONENT_TURN;
+        aimedCount = 0;
+        saveSnapshot();
+        send(() -> {
+            for (Coordinate c : pending) wire.sendMove(c);
+        });
+        moveSentNanos = System.nanoTime();
+        if (salvo == 1) return State.AWAITING_RESULT;
+        console.println("Salvo of " + pending.size() + " fired.");
+        return beginOpponentTurn();
     }
 
-    /** Convert a Coordinate to a string like "B4" */
-    private String serializeCoordinate(Coordinate c) {
-        return (char) ('A' + c.col) + Integer.toString(c.row + 1);
+    /** The opponent's answer to our oldest pending shot */
+    private State onResult(State state, String result) throws IOException {
+        if (Metrics.ENABLED) {
+            long now = System.nanoTime();
+            if (moveSentNanos != 0) Metrics.ROUND_TRIP.record(now - moveSentNanos);
+            if (turnStartNanos != 0) Metrics.TURN.record(now - turnStartNanos);
+        }
+        moveSentNanos = 0;
+        turnStartNanos = 0;
+        Coordinate target = pending.poll();
+        console.println(salvo == 1 ? "Result: " + result
+                : "Result at " + TextWire.serializeCoordinate(target) + ": " + result);
+        logAttack(0, target, result);
+        if (spectators != null) spectators.publish(myPlayer(), cellOf(target), result);
+
+        // Update opponent board; it has no ships, so it only knows what the opponent told us
+        boolean hit = !result.equals("MISS");
+        opponentBoard.recordShot(target, hit);
+        snapshot.turns++;
+        if (hit) snapshot.hitsScored.add(cellOf(target));
+        snapshot.pending = -1;
+        if (state == State.AWAITING_RESULT) snapshot.phase = GameSnapshot.OPPONENT_TURN;
+        saveSnapshot();
+
+        if (result.equals("WIN")) {
+            console.println("You win!");
+            if (log != null) log.endGame(game, 0, turn);
+            storeGame(myPlayer());
+            return State.OVER;
+        }
+        return state == State.AWAITING_RESULT ? beginOpponentTurn() : state; // A salvo game is already past our turn
     }
 
-    /** Convert a string like "C5" to a Coordinate object */
-    private Coordinate deserializeCoordinate(String s) {
-        int col = s.charAt(0) - 'A';
-        int row = Integer.parseInt(s.substring(1)) - 1;
-        return new Coordinate(row, col);
+    /** Resolve the opponent's shot on our board and answer it; a salvo's answers go out together after its last shot */
+    private State onOpponentMove(Coordinate coord) throws IOException {
+        if (!myBoard.isInBounds(coord)) return protocolError("attacked a cell off the board");
+        if (shotsDue == 0) shotsDue = Math.min(salvo, config.cells() - snapshot.shotsTaken.size());
+        shotsDue--;
+        String result = myBoard.attack(coord);
+        console.println("Opponent attacked " + TextWire.serializeCoordinate(coord) + ": " + result);
+
+        logAttack(1, coord, result);
+        if (spectators != null) spectators.publish(1 - myPlayer(), cellOf(coord), result);
+        // The snapshot is saved before the answer goes out, so an answer lost in a drop can be sent again
+        snapshot.shotsTaken.add(cellOf(coord));
+        snapshot.turns++;
+        snapshot.lastAnswer = BinaryWire.encodeResult(myBoard.allShipsSunk() ? "WIN" : result);
+        snapshot.phase = shotsDue > 0 ? GameSnapshot.OPPONENT_TURN : GameSnapshot.MY_TURN;
+        saveSnapshot();
+        if (myBoard.allShipsSunk()) {
+            send(() -> wire.sendResult("WIN"));
+            console.println("You lost! All ships sunk.");
+            if (log != null) log.endGame(game, 1, turn);
+            storeGame(1 - myPlayer());
+            return State.OVER;
+        }
+        if (shotsDue > 0) {
+            wire.sendResult(result); // Held back until the salvo's last shot is answered
+            return State.OPPONENT_TURN;
+        }
+        send(() -> wire.sendResult(result));
+        return beginMyTurn();
     }
 
-    /** Prompt player to enter attack coordinate, and ensure it's not a repeat */
-    private Coordinate getInputCoordinate() {
-        while (true) {
-            System.out.print("Enter attack (e.g., B4) or type EXIT: ");
-            String input = scanner.nextLine().toUpperCase();
-
-            // Allow manual exit
-            if (input.equalsIgnoreCase("EXIT")) {
-                out.println("DISCONNECT");
-                closeConnection();
-                System.out.println("You exited the game.");
-                System.exit(0);
-            }
+    private State protocolError(String what) throws IOException {
+        console.println("Opponent " + what + "; ending the game.");
+        send(() -> wire.sendDisconnect());
+        return State.OVER;
+    }
 
-            if (input.length() < 2 || input.length() > 3) continue;
+    /** Nothing has been sent for a heartbeat interval: tell the opponent we are still here */
+    private State ping(State state) throws IOException {
+        send(() -> wire.sendPing());
+        return state;
+    }
 
-            char colChar = input.charAt(0);
-            int row;
+    /** Every send goes through here, so the heartbeat clock restarts whenever we say anything */
+    private void send(WireAction action) throws IOException {
+        action.run();
+        wire.flush();
+        nextPingNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(heartbeatMillis);
+    }
 
+    private interface WireAction {
+        void run() throws IOException;
+    }
+
+    /**
+     * The connection is gone: wait for the opponent to come back with our session, then make up for whatever the drop
+     * swallowed (one round trip tells each side how many turns the other saw, and a lost shot or answer is sent again).
+     * Console input queues up meanwhile. Without a session the game just ends.
+     */
+    private State reconnect(String why) throws IOException {
+        console.println(why);
+        if (snapshot.session == 0 || resumeMillis <= 0) return State.OVER;
+        console.println(role == Role.HOST
+                ? "Waiting up to " + resumeMillis / 1000 + " s for the opponent to reconnect..."
+                : "Reconnecting to the host for up to " + resumeMillis / 1000 + " s...");
+        console.flush();
+        try {
+            wire.close();
+            socket.close();
+        } catch (IOException e) {
+            // The connection is already broken
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(resumeMillis);
+        int peerTurns = -1;
+        while (peerTurns < 0 && System.nanoTime() < deadline) {
+            Socket next = null;
             try {
-                row = Integer.parseInt(input.substring(1)) - 1;
-            } catch (NumberFormatException e) {
-                continue;
+                int remaining = (int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+                if (role == Role.HOST) {
+                    listener.setSoTimeout(remaining);
+                    next = listener.accept();
+                } else {
+                    next = new Socket();
+                    next.connect(peer, remaining);
+                }
+                next.setSoTimeout(remaining);
+                peerTurns = Handshake.resume(next, role, snapshot.session, snapshot.turns);
+                socket = next;
+            } catch (IOException e) {
+                if (next != null) next.close();
+                if (role == Role.CLIENT && !pause()) break;
             }
+        }
+        if (peerTurns < 0) {
+            console.println("Could not resume the game.");
+            return State.OVER;
+        }
+        console.println("Game resumed.");
+        wire = Wire.create(protocol, socket, config.cols());
+        startSocketReader();
+        return catchUp(peerTurns);
+    }
+
+    /** Wait a little before the next reconnect attempt; false if interrupted */
+    private static boolean pause() {
+        try {
+            Thread.sleep(RECONNECT_PAUSE_MILLIS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Both sides are back and know how many turns the other played. The side that answered a shot counts the turn
+     * before its answer arrives, so at most one message was lost: our answer if we are a turn ahead, our shot if we
+     * are level and still waiting for its result. Send that again and carry on where the snapshot left off.
+     */
+    private State catchUp(int peerTurns) throws IOException {
+        int ahead = snapshot.turns - peerTurns;
+        if (ahead < -1 || ahead > 1) return protocolError("disagrees about how far the game got");
+        if (ahead == 1) {
+            String answer = BinaryWire.decodeResult(snapshot.lastAnswer);
+            send(() -> wire.sendResult(answer));
+        } else if (ahead == 0 && snapshot.phase == GameSnapshot.AWAITING_RESULT) {
+            send(() -> wire.sendMove(pending.peek()));
+            moveSentNanos = System.nanoTime();
+        }
+        switch (snapshot.phase) {
+            case GameSnapshot.MY_TURN:
+                return beginMyTurn();
+            case GameSnapshot.AWAITING_RESULT:
+                console.println("\nWaiting for the result of " + TextWire.serializeCoordinate(pending.peek()) + "...");
+                return State.AWAITING_RESULT;
+            default:
+                return beginOpponentTurn();
+        }
+    }
+
+    /** Console lines (unless they come from a script) and socket messages each get a daemon thread that posts events */
+    private void startReaders() {
+        if (!console.isScripted()) {
+            Thread reader = new Thread(this::readConsole, "console-reader");
+            reader.setDaemon(true);
+            reader.start();
+        }
+        startSocketReader();
+    }
+
+    /** Read the current connection on its own thread; a reconnect starts a new one */
+    private void startSocketReader() {
+        try {
+            socket.setSoTimeout(heartbeat ? (int) timeoutMillis : 0); // Heartbeats keep a live peer under the timeout
+            socket.setTcpNoDelay(true); // Moves are tiny; don't let Nagle hold them back for a delayed ack
+        } catch (SocketException e) {
+            // Without a timeout a silent peer is only noticed when its socket closes
+        }
+        if (heartbeat) nextPingNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(heartbeatMillis);
+        Wire source = wire;
+        Thread network = new Thread(() -> readSocket(source), "socket-reader");
+        network.setDaemon(true);
+        network.start();
+    }
 
-            int col = colChar - 'A';
-            if (row >= 0 && row < 10 && col >= 0 && col < 10) {
-                Coordinate c = new Coordinate(row, col);
-                if (attackHistory.contains(c)) {
-                    System.out.println("You already attacked that coordinate. Try again.");
+    private void readConsole() {
+        try {
+            String line;
+            while ((line = console.readLine()) != null) events.add(new Event(Event.CONSOLE, line, null, null));
+        } catch (IOException e) {
+            // Treated like the end of input
+        }
+        events.add(new Event(Event.CONSOLE, "EXIT", null, null)); // No more input can come, so leave the game
+    }
+
+    private void readSocket(Wire source) {
+        try {
+            while (true) {
+                int kind = source.read();
+                if (kind == Wire.PING) continue; // Reading it already proved the peer is alive
+                if (kind == Wire.MOVE) {
+                    events.add(new Event(Event.MOVE, null, source.lastMove(), source));
+                } else if (kind == Wire.RESULT) {
+                    events.add(new Event(Event.RESULT, source.lastResult(), null, source));
+                } else if (kind == Wire.INVALID) {
+                    events.add(new Event(Event.INVALID, null, null, source));
+                    return; // The game ends over it, so nothing after it matters
                 } else {
-                    attackHistory.add(c); // Track new valid attack
-                    return c;
+                    events.add(new Event(kind == Wire.DISCONNECT ? Event.DISCONNECT : Event.CLOSED, null, null, source));
+                    return;
                 }
-            } else {
-                System.out.println("Invalid coordinate. Try again.");
             }
+        } catch (SocketTimeoutException e) {
+            events.add(new Event(Event.TIMEOUT, null, null, source));
+        } catch (IOException e) {
+            if (!closing) events.add(new Event(Event.ERROR, e.getMessage(), null, source));
+        }
+    }
+
+    /** Draw both boards and write them as one frame */
+    private void showBoards() {
+        frame.setLength(0);
+        if (!ansi) {
+            frame.append("\nYour Board:\n");
+            myView.render(myBoard, true, frame);
+            frame.append("\nOpponent Board (known hits/misses):\n");
+            opponentView.render(opponentBoard, false, frame);
+        } else {
+            int rows = config.rows();
+            if (!screenDrawn) {
+                BoardRenderer.moveTo(frame, 1, 1);
+                BoardRenderer.clearBelow(frame);
+                frame.append("Your Board:");
+                BoardRenderer.moveTo(frame, rows + 4, 1);
+                frame.append("Opponent Board (known hits/misses):");
+                screenDrawn = true;
+            }
+            myView.render(myBoard, true, frame);
+            opponentView.render(opponentBoard, false, frame);
+            // Messages and the prompt go below the boards; clear what the last turn left there
+            BoardRenderer.moveTo(frame, 2 * rows + 7, 1);
+            BoardRenderer.clearBelow(frame);
+        }
+        console.print(frame);
+    }
+
+    /** Randomly place the agreed fleet on the board */
+    private void placeShips(Board board) {
+        new FleetGenerator(config).placeFleet(board, random);
+    }
+
+    /**
+     * Start recording this game to the GameLog -Dbattleship.log names, if any. It is our side of the game: we are
+     * player 0, the opponent player 1, and only our own fleet is known.
+     */
+    private void openLog() {
+        try {
+            log = GameLog.fromSystemProperty();
+        } catch (IOException e) {
+            console.println("Game log unavailable: " + e.getMessage());
+        }
+        if (log == null) return;
+        game = log.startGame(config);
+        log.placement(game, 0, myBoard);
+    }
+
+    /** Record a shot; player 0 is us and player 1 the opponent */
+    private void logAttack(int player, Coordinate c, String result) {
+        if (shots != null) shots[shotCount++] = cellOf(c) << 1 | (player == 0 ? myPlayer() : 1 - myPlayer());
+        if (log == null) return;
+        log.attack(game, player, turn++, cellOf(c), result);
+    }
+
+    /**
+     * Add the game to the MatchStore, if -Dbattleship.store names one, with the host as player 0. We are
+     * -Dbattleship.player (the login name by default), the opponent is known by its address, and only our fleet is
+     * known. A game resumed from a snapshot file isn't stored, since the shots played before the restart are gone.
+     */
+    private void storeGame(int winner) {
+        if (shots == null) return;
+        String me = System.getProperty("battleship.player", System.getProperty("user.name", "me"));
+        String opponent = peer instanceof InetSocketAddress ? ((InetSocketAddress) peer).getHostString() : "opponent";
+        try (MatchStore store = MatchStore.fromSystemProperty()) {
+            if (store == null) return;
+            boolean host = role == Role.HOST;
+            long match = store.add(host ? me : opponent, host ? opponent : me, config, seed,
+                    host ? snapshot.ships : null, host ? null : snapshot.ships, shots, shotCount, winner);
+            console.println("Stored as match #" + match);
+        } catch (IOException e) {
+            console.println("Game not stored: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Start writing snapshots to the file -Dbattleship.snapshot names, if any, so a player whose process died can start
+     * again with --resume <file> and carry on
+     */
+    private void openSnapshotFile() {
+        String path = System.getProperty("battleship.snapshot");
+        if (path == null || path.isEmpty()) return;
+        try {
+            snapshotFile = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            snapshotBytes = ByteBuffer.allocate(snapshot.maxSize());
+        } catch (IOException e) {
+            console.println("Snapshots unavailable: " + e.getMessage());
+        }
+    }
+
+    /** Write the game as it stands over the last snapshot; called every time the turn changes hands */
+    private void saveSnapshot() {
+        if (snapshotFile == null) return;
+        snapshotBytes.clear();
+        snapshot.encode(snapshotBytes);
+        snapshotBytes.flip();
+        try {
+            snapshotFile.write(snapshotBytes, 0);
+            snapshotFile.truncate(snapshotBytes.limit());
+        } catch (IOException e) {
+            console.println("Snapshot not saved: " + e.getMessage());
         }
     }
 
+    /** Stream the match live to read-only spectators through a SpectatorHub on -Dbattleship.spectatorPort, if set */
+    private void openSpectators() {
+        String port = System.getProperty("battleship.spectatorPort");
+        if (port == null || port.isEmpty()) return;
+        try {
+            spectators = new SpectatorHub(Integer.parseInt(port), config);
+            console.println("Spectators can watch on port " + spectators.getLocalPort());
+        } catch (IOException | NumberFormatException e) {
+            console.println("Spectators unavailable: " + e.getMessage());
+        }
+    }
+
+    /** Spectators number the players in turn order: the host is player 0 */
+    private int myPlayer() {
+        return role == Role.HOST ? 0 : 1;
+    }
+
+    private int cellOf(Coordinate c) {
+        return c.row * config.cols() + c.col;
+    }
+
+    private Coordinate coordinateOf(int cell) {
+        return Coordinate.ofCell(cell, config.cols());
+    }
+
     /** Clean up resources and close socket gracefully */
     private void closeConnection() {
+        closing = true;
         try {
-            System.out.println("Closing connection...");
-            in.close();
-            out.close();
-            socket.close();
-            System.out.println("Connection closed.");
+            console.println("Closing connection...");
+            if (log != null) {
+                log.close();
+                log = null;
+            }
+            if (spectators != null) {
+                console.println(spectators.report());
+                spectators.close();
+                spectators = null;
+            }
+            if (snapshotFile != null) {
+                snapshotFile.close();
+                snapshotFile = null;
+            }
+            if (Metrics.ENABLED) System.err.print(Metrics.report());
+            socket.close(); // First, so the socket reader stops blocking in the wire it is reading and lets go of it
+            wire.close();
+            console.println("Connection closed.");
         } catch (IOException e) {
-            System.out.println("Error while closing connection: " + e.getMessage());
+            console.println("Error while closing connection: " + e.getMessage());
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+package com.battleship;
+
+// This class OpeningBook is the line of first shots ProbabilityDensityStrategy would fire if every one of them missed,
+// worked out once per board size and fleet instead of rescanning the density map each game. Each ply is the densest
+// cell given the misses before it, ties going to the lowest cell, so the line itself never varies; a game picks one of
+// the board's symmetries at random (4 mirror images and rotations, 8 on a square board) and plays the line through it,
+// which keeps openings from being predictable without costing anything. The first hit takes a game off the book.
+// The book for the standard {5,4,3,3,2} game is built when the class loads; others are built on first use and kept.
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+final class OpeningBook {
+    static final int DEPTH = 20; // Shots the book covers, if no ship is hit sooner
+
+    private static final Map<GameConfig, OpeningBook> books = new ConcurrentHashMap<>();
+
+    static {
+        forConfig(GameConfig.STANDARD);
+    }
+
+    private final int[][] lines; // lines[symmetry][ply] = cell
+
+    private OpeningBook(GameConfig config) {
+        int rows = config.rows();
+        int cols = config.cols();
+        int depth = Math.min(DEPTH, config.cells() - sum(config.fleet()));
+        int[] line = new int[depth];
+        ProbabilityDensityStrategy density = new ProbabilityDensityStrategy(false, false);
+        density.reset(rows, cols, config.fleet(), null);
+        for (int ply = 0; ply < depth; ply++) {
+            line[ply] = density.densestCell();
+            density.onResult(line[ply], "MISS");
+        }
+
+        lines = new int[rows == cols ? 8 : 4][depth];
+        for (int s = 0; s < lines.length; s++) {
+            for (int ply = 0; ply < depth; ply++) {
+                int r = line[ply] / cols;
+                int c = line[ply] % cols;
+                if ((s & 1) != 0) r = rows - 1 - r;
+                if ((s & 2) != 0) c = cols - 1 - c;
+                lines[s][ply] = (s & 4) != 0 ? c * cols + r : r * cols + c; // Transposing needs rows == cols
+            }
+        }
+    }
+
+    // The book for this board and fleet, built the first time it is asked for
+    static OpeningBook forConfig(GameConfig config) {
+        return books.computeIfAbsent(config, OpeningBook::new);
+    }
+
+    int depth() {
+        return lines[0].length;
+    }
+
+    int symmetries() {
+        return lines.length;
+    }
+
+    // The cell to fire at on this ply of the line, seen through the given symmetry
+    int shot(int symmetry, int ply) {
+        return lines[symmetry][ply];
+    }
+
+    private static int sum(int[] values) {
+        int total = 0;
+        for (int v : values) total += v;
+        return total;
+    }
+}
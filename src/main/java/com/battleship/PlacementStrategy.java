@@ -0,0 +1,13 @@
+package com.battleship;
+
+// This interface PlacementStrategy is how a computer player lays out its fleet, plugged into SimulatedGame next to its
+// TargetingStrategy. A layout has one entry per ship in fleet order, start cell * 2 plus 1 if the ship runs down, the
+// same form FleetGenerator writes. One instance places fleets for many games in a row, so implementations should reuse
+// their state instead of allocating per game; an instance is not thread-safe.
+
+import java.util.SplittableRandom;
+
+public interface PlacementStrategy {
+    // Fill layout (one entry per ship of config's fleet) with the fleet for a new game
+    void place(GameConfig config, int[] layout, SplittableRandom random);
+}
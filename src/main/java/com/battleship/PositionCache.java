@@ -0,0 +1,148 @@
+package com.battleship;
+
+// This class PositionCache is a bounded least-recently-used map from a 64-bit position hash to an int, shared by every
+// thread that simulates games. It is split into segments chosen by the high bits of the key, each with its own lock, so
+// threads rarely wait on each other. Inside a segment, entries live in parallel primitive arrays, chained per hash bucket
+// and linked in use order; the oldest entry is overwritten once the segment is full, so get and put allocate nothing.
+// Keys are hashes, not the positions themselves: two positions that hash alike share an entry, and callers check that a
+// cached answer still makes sense before using it.
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+final class PositionCache {
+    static final int MISSING = Integer.MIN_VALUE; // Returned by get() when the key is not cached
+
+    private static final int SEGMENT_BITS = 4;
+
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    // Room for at least the given number of entries in total
+    PositionCache(int entries) {
+        int perSegment = Math.max(1, (entries + segments.length - 1) >>> SEGMENT_BITS);
+        for (int i = 0; i < segments.length; i++) segments[i] = new Segment(perSegment);
+    }
+
+    // The value cached for key, or MISSING
+    int get(long key) {
+        int value = segment(key).get(key);
+        (value == MISSING ? misses : hits).increment();
+        return value;
+    }
+
+    void put(long key, int value) {
+        segment(key).put(key, value);
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    private Segment segment(long key) {
+        return segments[(int) (key >>> (64 - SEGMENT_BITS))];
+    }
+
+    private static final class Segment {
+        private final long[] keys;
+        private final int[] values;
+        private final int[] buckets;   // Head entry of each chain, -1 if empty
+        private final int[] chain;     // Next entry in the same bucket, -1 at the end
+        private final int[] newer;     // Use order, -1 at either end
+        private final int[] older;
+        private final int mask;
+        private int size;
+        private int newest = -1;
+        private int oldest = -1;
+
+        Segment(int capacity) {
+            keys = new long[capacity];
+            values = new int[capacity];
+            chain = new int[capacity];
+            newer = new int[capacity];
+            older = new int[capacity];
+            buckets = new int[Integer.highestOneBit(Math.max(1, capacity - 1)) << 1];
+            Arrays.fill(buckets, -1);
+            mask = buckets.length - 1;
+        }
+
+        synchronized int get(long key) {
+            int e = find(key);
+            if (e < 0) return MISSING;
+            touch(e);
+            return values[e];
+        }
+
+        synchronized void put(long key, int value) {
+            int e = find(key);
+            if (e < 0) {
+                if (size < keys.length) {
+                    e = size++;
+                } else {
+                    e = oldest; // Evict the least recently used entry and reuse its slot
+                    unlinkBucket(e);
+                    unlinkUse(e);
+                }
+                keys[e] = key;
+                int b = bucket(key);
+                chain[e] = buckets[b];
+                buckets[b] = e;
+                pushNewest(e);
+            } else {
+                touch(e);
+            }
+            values[e] = value;
+        }
+
+        private int bucket(long key) {
+            return (int) (key ^ key >>> 32) & mask;
+        }
+
+        private int find(long key) {
+            for (int e = buckets[bucket(key)]; e >= 0; e = chain[e]) {
+                if (keys[e] == key) return e;
+            }
+            return -1;
+        }
+
+        private void touch(int e) {
+            if (e == newest) return;
+            unlinkUse(e);
+            pushNewest(e);
+        }
+
+        private void pushNewest(int e) {
+            older[e] = newest;
+            newer[e] = -1;
+            if (newest >= 0) newer[newest] = e;
+            newest = e;
+            if (oldest < 0) oldest = e;
+        }
+
+        private void unlinkUse(int e) {
+            if (older[e] >= 0) newer[older[e]] = newer[e];
+            else oldest = newer[e];
+            if (newer[e] >= 0) older[newer[e]] = older[e];
+            else newest = older[e];
+        }
+
+        private void unlinkBucket(int e) {
+            int b = bucket(keys[e]);
+            if (buckets[b] == e) {
+                buckets[b] = chain[e];
+                return;
+            }
+            for (int p = buckets[b]; p >= 0; p = chain[p]) {
+                if (chain[p] == e) {
+                    chain[p] = chain[e];
+                    return;
+                }
+            }
+        }
+    }
+}
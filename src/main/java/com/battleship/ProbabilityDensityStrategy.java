@@ -0,0 +1,326 @@
+package com.battleship;
+
+// This class ProbabilityDensityStrategy aims at the cell covered by the most placements of the ships still afloat.
+// For each ship length it keeps cover[cell], the number of placements of that length that avoid every cell already fired
+// at, and density[cell] sums those counts weighted by how many ships of each length remain. A shot only invalidates the
+// placements running through that cell, so each result is applied by walking at most 2 * length placements per ship
+// length instead of recounting the board; a SUNK result subtracts that length's cover once.
+//
+// While some hits do not yet belong to a sunk ship the strategy is targeting: it scores the unknown cells of every
+// placement that runs through those hits and avoids misses and sunk ships, weighting placements that line up with more
+// hits more heavily. All state lives in primitive arrays that are reused from game to game; nothing is allocated per shot.
+//
+// The first shots come from the OpeningBook for the board and fleet until one of them hits. With
+// -Dbattleship.endgameSolver=true, once no more than EndgameSolver.MAX_SHIPS ships are afloat the EndgameSolver picks
+// the exact best shot whenever the position is small enough to enumerate, falling back on the density counts when it is
+// not. It is off by default: on the standard board the density counts are already within noise of exact play and
+// endgame positions almost never repeat, so solving costs more than half the simulation rate for no measurable gain;
+// on small boards, where the cache serves most positions, the cost is lower.
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+public class ProbabilityDensityStrategy implements TargetingStrategy {
+    // Cell states, shared with EndgameSolver
+    static final byte UNKNOWN = 0;
+    static final byte MISS = 1;
+    static final byte HIT = 2;  // Hit, but not yet attributed to a sunk ship
+    static final byte SUNK = 3;
+
+    private static final boolean SOLVE_ENDGAMES = Boolean.getBoolean("battleship.endgameSolver");
+
+    private final boolean useBook;
+    private final boolean useSolver;
+
+    private int rows;
+    private int cols;
+    private int[] fleetKey = new int[0];  // Fleet the templates below were built for
+    private int[] lengths = new int[0];   // Distinct ship lengths, longest first
+    private int[] fleetCount = new int[0]; // Ships of each length in the fleet
+    private int[][] emptyCover = new int[0][]; // cover[] of an empty board, copied on reset
+
+    private int[] remaining = new int[0];  // Ships of each length still afloat
+    private int[][] cover = new int[0][];
+    private long[] density = new long[0];
+    private byte[] state = new byte[0];
+    private int[] openHits = new int[0];   // Cells in state HIT
+    private int openHitCount;
+    private int[] score = new int[0];      // Target-mode scratch, only non-zero at cells listed in touched
+    private int[] touched = new int[0];
+    private SplittableRandom random;
+    private OpeningBook book;     // Null when not using one
+    private int symmetry;         // Which mirror image of the book line this game plays
+    private int bookPly;          // Book shots fired so far, or -1 once a hit takes the game off the book
+    private EndgameSolver solver; // Null when not using one
+
+    public ProbabilityDensityStrategy() {
+        this(true, SOLVE_ENDGAMES);
+    }
+
+    // Without the book and solver this plays on the density counts alone, which is how the book itself is worked out
+    ProbabilityDensityStrategy(boolean useBook, boolean useSolver) {
+        this.useBook = useBook;
+        this.useSolver = useSolver;
+    }
+
+    @Override
+    public void reset(int rows, int cols, int[] fleet, SplittableRandom random) {
+        if (rows != this.rows || cols != this.cols || !Arrays.equals(fleet, fleetKey)) buildTemplates(rows, cols, fleet);
+        this.random = random;
+        bookPly = book != null && book.depth() > 0 ? 0 : -1;
+        if (bookPly == 0) symmetry = random.nextInt(book.symmetries());
+        int cells = rows * cols;
+        Arrays.fill(state, UNKNOWN);
+        Arrays.fill(density, 0);
+        openHitCount = 0;
+        for (int k = 0; k < lengths.length; k++) {
+            remaining[k] = fleetCount[k];
+            System.arraycopy(emptyCover[k], 0, cover[k], 0, cells);
+            for (int cell = 0; cell < cells; cell++) density[cell] += (long) remaining[k] * cover[k][cell];
+        }
+    }
+
+    @Override
+    public int nextShot() {
+        if (bookPly >= 0) return book.shot(symmetry, bookPly);
+        if (solver != null) {
+            int cell = solver.bestShot(state, remaining, openHitCount);
+            if (cell >= 0) return cell;
+        }
+        if (openHitCount > 0) {
+            int cell = targetShot();
+            if (cell >= 0) return cell;
+        }
+        return densestCell();
+    }
+
+    @Override
+    public void onResult(int cell, String result) {
+        if (state[cell] != UNKNOWN) return; // Not a fresh shot; nothing new to learn
+        if (bookPly >= 0) {
+            boolean onBook = result.equals("MISS") && cell == book.shot(symmetry, bookPly);
+            bookPly = onBook && bookPly + 1 < book.depth() ? bookPly + 1 : -1;
+        }
+        block(cell);
+        if (result.equals("MISS")) {
+            state[cell] = MISS;
+            return;
+        }
+        state[cell] = HIT;
+        openHits[openHitCount++] = cell;
+        if (result.equals("SUNK")) resolveSunk(cell);
+    }
+
+    // Precompute per-length placement counts for an empty board of this size and fleet
+    private void buildTemplates(int rows, int cols, int[] fleet) {
+        this.rows = rows;
+        this.cols = cols;
+        fleetKey = fleet.clone();
+        int[] sorted = fleet.clone();
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) distinct++;
+        }
+        lengths = new int[distinct];
+        fleetCount = new int[distinct];
+        for (int i = sorted.length - 1, k = -1; i >= 0; i--) {
+            if (k < 0 || lengths[k] != sorted[i]) lengths[++k] = sorted[i];
+            fleetCount[k]++;
+        }
+
+        int cells = rows * cols;
+        remaining = new int[distinct];
+        emptyCover = new int[distinct][cells];
+        cover = new int[distinct][cells];
+        for (int k = 0; k < distinct; k++) {
+            int len = lengths[k];
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    if (c + len <= cols) {
+                        for (int i = 0; i < len; i++) emptyCover[k][r * cols + c + i]++;
+                    }
+                    if (r + len <= rows && len > 1) { // A single cell is one placement, counted across
+                        for (int i = 0; i < len; i++) emptyCover[k][(r + i) * cols + c]++;
+                    }
+                }
+            }
+        }
+        density = new long[cells];
+        state = new byte[cells];
+        openHits = new int[cells];
+        score = new int[cells];
+        touched = new int[cells];
+        book = useBook ? OpeningBook.forConfig(new GameConfig(rows, cols, fleet)) : null;
+        solver = useSolver ? new EndgameSolver(rows, cols, lengths) : null;
+    }
+
+    // Remove every still-valid placement through cell x; called just before x stops being UNKNOWN
+    private void block(int x) {
+        int r = x / cols;
+        int c = x % cols;
+        for (int k = 0; k < lengths.length; k++) {
+            int weight = remaining[k];
+            if (weight == 0) continue; // This length no longer contributes; its cover is never read again
+            int len = lengths[k];
+            int[] cov = cover[k];
+            for (int sc = Math.max(0, c - len + 1), end = Math.min(c, cols - len); sc <= end; sc++) {
+                removePlacement(r * cols + sc, 1, len, cov, weight);
+            }
+            for (int sr = Math.max(0, r - len + 1), end = len > 1 ? Math.min(r, rows - len) : -1; sr <= end; sr++) {
+                removePlacement(sr * cols + c, cols, len, cov, weight);
+            }
+        }
+    }
+
+    private void removePlacement(int start, int step, int len, int[] cov, int weight) {
+        int last = start + (len - 1) * step;
+        for (int y = start; y <= last; y += step) {
+            if (state[y] != UNKNOWN) return; // Already invalidated by an earlier shot
+        }
+        for (int y = start; y <= last; y += step) {
+            cov[y]--;
+            density[y] -= weight;
+        }
+    }
+
+    // The endgame solver's answer for the current position, worked out afresh without the cache; -1 if there is no
+    // solver or no answer. For benchmarks.
+    int solveEndgame() {
+        return solver == null ? -1 : solver.solve(state, remaining, openHitCount);
+    }
+
+    // The unknown cell with the highest density; ties are broken at random, or go to the lowest cell if reset() was
+    // given no random
+    int densestCell() {
+        int best = -1;
+        long bestDensity = Long.MIN_VALUE;
+        int ties = 0;
+        for (int cell = 0; cell < state.length; cell++) {
+            if (state[cell] != UNKNOWN) continue;
+            long d = density[cell];
+            if (d > bestDensity) {
+                bestDensity = d;
+                best = cell;
+                ties = 1;
+            } else if (d == bestDensity && random != null && random.nextInt(++ties) == 0) {
+                best = cell;
+            }
+        }
+        if (best < 0) throw new IllegalStateException("Every cell has been fired at");
+        return best;
+    }
+
+    // Score unknown cells by the placements through open hits; -1 if no such placement exists
+    private int targetShot() {
+        int touchedCount = 0;
+        for (int i = 0; i < openHitCount; i++) {
+            int h = openHits[i];
+            int r = h / cols;
+            int c = h % cols;
+            for (int k = 0; k < lengths.length; k++) {
+                if (remaining[k] == 0) continue;
+                int len = lengths[k];
+                for (int sc = Math.max(0, c - len + 1), end = Math.min(c, cols - len); sc <= end; sc++) {
+                    touchedCount = scorePlacement(r * cols + sc, 1, len, remaining[k], touchedCount);
+                }
+                for (int sr = Math.max(0, r - len + 1), end = len > 1 ? Math.min(r, rows - len) : -1; sr <= end; sr++) {
+                    touchedCount = scorePlacement(sr * cols + c, cols, len, remaining[k], touchedCount);
+                }
+            }
+        }
+
+        int best = -1;
+        int bestScore = 0;
+        int ties = 0;
+        for (int i = 0; i < touchedCount; i++) {
+            int cell = touched[i];
+            int s = score[cell];
+            score[cell] = 0; // Leave the scratch array clean for the next shot
+            if (s > bestScore) {
+                bestScore = s;
+                best = cell;
+                ties = 1;
+            } else if (s == bestScore && random.nextInt(++ties) == 0) {
+                best = cell;
+            }
+        }
+        return best;
+    }
+
+    // Add one placement's weight to its unknown cells; placements lined up with more hits count for more
+    private int scorePlacement(int start, int step, int len, int weight, int touchedCount) {
+        int last = start + (len - 1) * step;
+        int hitsCovered = 0;
+        for (int y = start; y <= last; y += step) {
+            byte s = state[y];
+            if (s == MISS || s == SUNK) return touchedCount;
+            if (s == HIT) hitsCovered++;
+        }
+        int w = weight * hitsCovered;
+        for (int y = start; y <= last; y += step) {
+            if (state[y] != UNKNOWN) continue;
+            if (score[y] == 0) touched[touchedCount++] = y;
+            score[y] += w;
+        }
+        return touchedCount;
+    }
+
+    // A SUNK result doesn't say which ship went down: take the longest ship still afloat that fits in the run of open
+    // hits through x, mark those cells sunk, and drop that ship's placements from the density
+    private void resolveSunk(int x) {
+        int r = x / cols;
+        int c = x % cols;
+        int left = c;
+        while (left > 0 && state[x - (c - left) - 1] == HIT) left--;
+        int right = c;
+        while (right < cols - 1 && state[x + (right - c) + 1] == HIT) right++;
+        int up = r;
+        while (up > 0 && state[x - (r - up + 1) * cols] == HIT) up--;
+        int down = r;
+        while (down < rows - 1 && state[x + (down - r + 1) * cols] == HIT) down++;
+
+        int horizontalK = longestFitting(right - left + 1);
+        int verticalK = longestFitting(down - up + 1);
+        boolean horizontal = horizontalK >= 0 && (verticalK < 0 || lengths[horizontalK] >= lengths[verticalK]);
+        int k = horizontal ? horizontalK : verticalK;
+
+        if (k < 0) {
+            // Nothing fits: an earlier attribution was wrong. Retire the shortest ship and just this cell.
+            k = lengths.length - 1;
+            while (remaining[k] == 0) k--;
+            markSunk(x);
+        } else {
+            int len = lengths[k];
+            if (horizontal) {
+                int start = Math.max(left, c - len + 1);
+                for (int i = 0; i < len; i++) markSunk(r * cols + start + i);
+            } else {
+                int start = Math.max(up, r - len + 1);
+                for (int i = 0; i < len; i++) markSunk((start + i) * cols + c);
+            }
+        }
+
+        int[] cov = cover[k];
+        for (int cell = 0; cell < density.length; cell++) density[cell] -= cov[cell];
+        remaining[k]--;
+    }
+
+    // Index of the longest ship length still afloat that is at most run, or -1
+    private int longestFitting(int run) {
+        for (int k = 0; k < lengths.length; k++) {
+            if (remaining[k] > 0 && lengths[k] <= run) return k;
+        }
+        return -1;
+    }
+
+    private void markSunk(int cell) {
+        state[cell] = SUNK;
+        for (int i = 0; i < openHitCount; i++) {
+            if (openHits[i] == cell) {
+                openHits[i] = openHits[--openHitCount];
+                return;
+            }
+        }
+    }
+}
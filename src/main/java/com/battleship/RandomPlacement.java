@@ -0,0 +1,20 @@
+package com.battleship;
+
+// This class RandomPlacement draws every legal layout with the same probability, the way human games and SimulatedGame's
+// default fleets are placed. It is the baseline the other placement strategies are measured against.
+
+import java.util.SplittableRandom;
+
+public class RandomPlacement implements PlacementStrategy {
+    private GameConfig config;
+    private FleetGenerator generator;
+
+    @Override
+    public void place(GameConfig config, int[] layout, SplittableRandom random) {
+        if (!config.equals(this.config)) {
+            this.config = config;
+            generator = new FleetGenerator(config);
+        }
+        generator.generate(layout, random);
+    }
+}
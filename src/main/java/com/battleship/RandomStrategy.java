@@ -0,0 +1,36 @@
+package com.battleship;
+
+// This class RandomStrategy fires at every cell in a random order, without ever repeating a shot.
+// It is the baseline the smarter strategies are measured against.
+
+import java.util.SplittableRandom;
+
+public class RandomStrategy implements TargetingStrategy {
+    private int[] order = new int[0]; // Cells not yet fired at live in order[next..]
+    private int next;
+    private SplittableRandom random;
+
+    @Override
+    public void reset(int rows, int cols, int[] fleet, SplittableRandom random) {
+        int cells = rows * cols;
+        if (order.length != cells) order = new int[cells];
+        for (int i = 0; i < cells; i++) order[i] = i;
+        this.next = 0;
+        this.random = random;
+    }
+
+    @Override
+    public int nextShot() {
+        // One step of a Fisher-Yates shuffle: swap a random remaining cell to the front and take it
+        int pick = next + random.nextInt(order.length - next);
+        int cell = order[pick];
+        order[pick] = order[next];
+        order[next++] = cell;
+        return cell;
+    }
+
+    @Override
+    public void onResult(int cell, String result) {
+        // Random fire ignores results
+    }
+}
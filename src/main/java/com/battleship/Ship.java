@@ -2,46 +2,78 @@ package com.battleship;
 
 // This class Ship represents the Ship objects players will create. It will know the position (coordinates) of ships
 // and will know its size, orentation, and track hits.
+// Hits are one bit per part plus a count of parts still unhit, so isSunk is a single comparison. A straight ship, which
+// is every ship the game places, finds the part a coordinate hits by arithmetic instead of searching its parts.
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class Ship {
     private List<Coordinate> coordinates; // List of all cells this ship occupies
-    private List<Boolean> hits;           // Parallel list of booleans for hit status
+    private final CellSet hitParts;       // Bit i is set once part i has been hit
+    private int unhitParts;
+    private final int stepRow;            // Offset from one part to the next if the ship is a straight line,
+    private final int stepCol;            // or both 0 if its parts have to be searched
 
     public Ship(List<Coordinate> coordinates) {
         this.coordinates = coordinates;
-        this.hits = new ArrayList<>();
-        // Initially, no parts of the ship are hit
-        for (int i = 0; i < coordinates.size(); i++) {
-            hits.add(false);
+        this.hitParts = new CellSet(coordinates.size());
+        this.unhitParts = coordinates.size(); // Initially, no parts of the ship are hit
+        int dr = 0;
+        int dc = 0;
+        if (coordinates.size() > 1) {
+            dr = coordinates.get(1).row - coordinates.get(0).row;
+            dc = coordinates.get(1).col - coordinates.get(0).col;
+            boolean unit = Math.abs(dr) + Math.abs(dc) == 1;
+            for (int i = 2; unit && i < coordinates.size(); i++) {
+                Coordinate prev = coordinates.get(i - 1);
+                Coordinate c = coordinates.get(i);
+                unit = c.row - prev.row == dr && c.col - prev.col == dc;
+            }
+            if (!unit) {
+                dr = 0;
+                dc = 0;
+            }
         }
+        this.stepRow = dr;
+        this.stepCol = dc;
     }
 
     // Returns true if the ship occupies the given coordinate
     public boolean occupies(Coordinate c) {
-        return coordinates.contains(c);
+        return partOf(c) >= 0;
     }
 
     // Register a hit if the coordinate matches one of the ship's parts
     public boolean registerHit(Coordinate c) {
-        for (int i = 0; i < coordinates.size(); i++) {
-            if (coordinates.get(i).equals(c)) {
-                hits.set(i, true); // Mark the corresponding part as hit
-                return true;
-            }
+        int part = partOf(c);
+        if (part < 0) return false;
+        if (!hitParts.contains(part)) {
+            hitParts.add(part); // Mark the corresponding part as hit
+            unhitParts--;
         }
-        return false;
+        return true;
     }
 
     // Returns true if all parts of the ship are hit
     public boolean isSunk() {
-        return hits.stream().allMatch(hit -> hit);
+        return unhitParts == 0;
     }
 
     // Expose the list of coordinates this ship occupies (used during placement)
     public List<Coordinate> getCoordinates() {
         return coordinates;
     }
-}
\ No newline at end of file
+
+    // Index of the part at c, or -1 if the ship doesn't cover it
+    private int partOf(Coordinate c) {
+        if (stepRow != 0 || stepCol != 0) {
+            Coordinate first = coordinates.get(0);
+            int part = stepRow != 0 ? (c.row - first.row) * stepRow : (c.col - first.col) * stepCol;
+            return part >= 0 && part < coordinates.size() && coordinates.get(part).equals(c) ? part : -1;
+        }
+        for (int i = 0; i < coordinates.size(); i++) {
+            if (coordinates.get(i).equals(c)) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,107 @@
+package com.battleship;
+
+// This class SimulatedGame plays a complete headless game between two TargetingStrategy objects. It follows the same rules
+// as LocalGame (random fleets, one shot per turn, first to sink every ship wins) but never touches System.in or System.out.
+// Fleets are uniformly random unless each side brings its own PlacementStrategy.
+// An instance is not thread-safe; give each worker thread its own. Games can be recorded to a GameLog with setLog().
+
+import java.util.SplittableRandom;
+
+public class SimulatedGame {
+    private final GameConfig config;
+    private final int[] fleet;
+    private final CellSet[] fired = new CellSet[2]; // Guards against strategies repeating a shot
+    private final int[] shots = new int[2];
+    private final FleetGenerator fleetGenerator;
+    private final int[] layout;
+    private GameLog log; // Where games are recorded, or null
+
+    public SimulatedGame(GameConfig config) {
+        this.config = config;
+        this.fleet = config.fleet();
+        this.fleetGenerator = new FleetGenerator(config);
+        this.layout = new int[fleet.length];
+        fired[0] = new CellSet(config.cells());
+        fired[1] = new CellSet(config.cells());
+    }
+
+    // Record every game played from now on to the log; null stops recording
+    public void setLog(GameLog log) {
+        this.log = log;
+    }
+
+    // Play one game with first shooting first. Returns the winner: 0 for first, 1 for second.
+    public int play(TargetingStrategy first, TargetingStrategy second, SplittableRandom random) {
+        return play(first, second, new Board[] {placeFleet(random), placeFleet(random)}, random);
+    }
+
+    // Play one game as above with each side's fleet laid out by its own placement strategy
+    public int play(TargetingStrategy first, TargetingStrategy second, PlacementStrategy firstFleet,
+                    PlacementStrategy secondFleet, SplittableRandom random) {
+        Board secondBoard = placeFleet(secondFleet, random);
+        return play(first, second, new Board[] {secondBoard, placeFleet(firstFleet, random)}, random);
+    }
+
+    // boards[p] is the board player p attacks
+    private int play(TargetingStrategy first, TargetingStrategy second, Board[] boards, SplittableRandom random) {
+        TargetingStrategy[] players = {first, second};
+        first.reset(config.rows(), config.cols(), fleet, random);
+        second.reset(config.rows(), config.cols(), fleet, random);
+        fired[0].clear();
+        fired[1].clear();
+        shots[0] = 0;
+        shots[1] = 0;
+        int game = -1;
+        if (log != null) {
+            game = log.startGame(config);
+            log.placement(game, 0, boards[1]);
+            log.placement(game, 1, boards[0]);
+        }
+
+        int player = 0;
+        while (true) {
+            int cell = players[player].nextShot();
+            if (cell < 0 || cell >= config.cells() || fired[player].contains(cell)) {
+                throw new IllegalStateException("Strategy " + players[player].getClass().getSimpleName()
+                        + " fired at an invalid or repeated cell " + cell);
+            }
+            fired[player].add(cell);
+            shots[player]++;
+
+            Board target = boards[player];
+            String result = target.attack(cell / config.cols(), cell % config.cols());
+            players[player].onResult(cell, result);
+            if (log != null) log.attack(game, player, shots[0] + shots[1] - 1, cell, result);
+            if (target.allShipsSunk()) {
+                if (log != null) log.endGame(game, player, shots[0] + shots[1]);
+                return player;
+            }
+            player ^= 1; // Switch turns
+        }
+    }
+
+    // Shots fired by a player (0 or 1) in the last game played
+    public int shotsFired(int player) {
+        return shots[player];
+    }
+
+    // A fresh board carrying a random fleet drawn from the game's generator
+    private Board placeFleet(SplittableRandom random) {
+        Board board = new Board(config.rows(), config.cols());
+        fleetGenerator.placeFleet(board, random);
+        return board;
+    }
+
+    // A fresh board carrying the fleet a placement strategy lays out
+    private Board placeFleet(PlacementStrategy placement, SplittableRandom random) {
+        placement.place(config, layout, random);
+        Board board = new Board(config.rows(), config.cols());
+        for (int i = 0; i < fleet.length; i++) {
+            if (!board.placeShip(fleetGenerator.toShip(layout[i], fleet[i]))) {
+                throw new IllegalStateException("Placement " + placement.getClass().getSimpleName()
+                        + " laid out overlapping or out-of-bounds ships");
+            }
+        }
+        return board;
+    }
+}
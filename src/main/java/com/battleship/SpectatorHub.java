@@ -0,0 +1,323 @@
+package com.battleship;
+
+// This class SpectatorHub streams one live match to any number of read-only spectators. The game's turn loop publishes
+// each attack once; the hub copies it into a bounded ring buffer per spectator and a writer thread per spectator drains
+// its ring to the socket. Publishing never waits on a spectator: if a ring is full the spectator stops receiving
+// events, and once its writer catches up it is sent a snapshot of both boards and carries on from there. A spectator
+// whose writer stays stuck for longer than the drop timeout is disconnected.
+//
+// Spectators receive text lines:
+//   SPECTATE <config>                 once, on connect
+//   SNAPSHOT <events> <board1> <board2>   the shots on each player's board so far, one char per cell: '.', 'O' or 'X'
+//   ATTACK <player> <cell> <result>   player 1 or 2 fired at a cell like "B4"; result is MISS, HIT, SUNK or WIN
+// A snapshot may already include a few of the events that follow it; replaying those again changes nothing.
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public class SpectatorHub implements Closeable {
+    public static final int DEFAULT_RING_CAPACITY = 1024;
+    public static final long DEFAULT_DROP_AFTER_MILLIS = 5000;
+
+    private final GameConfig config;
+    private final int ringCapacity;
+    private final long dropAfterNanos;
+    private final byte[][] boards;      // Shots landed on each player's board: '.', 'O' or 'X'
+    private volatile long published;    // Events published so far; written only by the publishing thread
+    private final List<Spectator> spectators = new CopyOnWriteArrayList<>();
+    private final ServerSocket server;
+    private final ExecutorService writers = GameServer.newSessionExecutor();
+    private volatile boolean running = true;
+
+    private final AtomicLong spectatorsJoined = new AtomicLong();
+    private final AtomicLong spectatorsDropped = new AtomicLong();
+    private final AtomicLong framesDelivered = new AtomicLong();
+    private final AtomicLong framesDropped = new AtomicLong();
+    private final AtomicLong snapshotsSent = new AtomicLong();
+    private final LatencyHistogram latency = new LatencyHistogram(); // Publish-to-written latency
+
+    public SpectatorHub(int port, GameConfig config) throws IOException {
+        this(port, config, DEFAULT_RING_CAPACITY, DEFAULT_DROP_AFTER_MILLIS);
+    }
+
+    // ringCapacity is rounded up to a power of two
+    public SpectatorHub(int port, GameConfig config, int ringCapacity, long dropAfterMillis) throws IOException {
+        this.config = config;
+        this.ringCapacity = Integer.highestOneBit(Math.max(2, ringCapacity - 1)) << 1;
+        this.dropAfterNanos = TimeUnit.MILLISECONDS.toNanos(dropAfterMillis);
+        this.boards = new byte[2][config.cells()];
+        Arrays.fill(boards[0], (byte) '.');
+        Arrays.fill(boards[1], (byte) '.');
+        this.server = new ServerSocket(port, 1024);
+        Thread acceptor = GameServer.daemon("spectator-accept").newThread(this::accept);
+        acceptor.start();
+    }
+
+    // The port spectators connect to
+    public int getLocalPort() {
+        return server.getLocalPort();
+    }
+
+    // Publish an attack by player (0 moves first) at a packed cell. Never blocks on spectators.
+    public void publish(int player, int cell, String result) {
+        long stamp = System.nanoTime();
+        boards[1 - player][cell] = (byte) (result.equals("MISS") ? 'O' : 'X');
+        published = published + 1; // Publishes the board write above to writers building a snapshot
+        long frame = (long) player << 40 | (long) BinaryWire.encodeResult(result) << 32 | cell;
+        for (Spectator s : spectators) {
+            if (s.lagging) {
+                framesDropped.incrementAndGet();
+                if (stamp - s.laggingSince > dropAfterNanos) remove(s, true);
+                continue;
+            }
+            if (!s.offer(frame, stamp)) {
+                s.laggingSince = stamp;
+                s.lagging = true; // The writer skips to a snapshot when it gets going again
+                framesDropped.incrementAndGet();
+            }
+            if (s.parked) LockSupport.unpark(s.thread); // A busy writer will see the new frame without a wake-up
+        }
+    }
+
+    public int getSpectators() {
+        return spectators.size();
+    }
+
+    public long getSpectatorsJoined() {
+        return spectatorsJoined.get();
+    }
+
+    public long getSpectatorsDropped() {
+        return spectatorsDropped.get();
+    }
+
+    public long getFramesDelivered() {
+        return framesDelivered.get();
+    }
+
+    public long getFramesDropped() {
+        return framesDropped.get();
+    }
+
+    public long getSnapshotsSent() {
+        return snapshotsSent.get();
+    }
+
+    // Upper bound in nanoseconds on the given fraction (e.g. 0.99) of publish-to-written latencies
+    public long latencyPercentile(double fraction) {
+        return latency.percentile(fraction);
+    }
+
+    // Load test: publish events to many spectators, some of which never read, and print the metrics.
+    // Arguments: spectators, how many of them stall, events, microseconds between events
+    public static void main(String[] args) throws Exception {
+        int watchers = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int stalled = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int events = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+        long gapMicros = args.length > 3 ? Long.parseLong(args[3]) : 100;
+        GameConfig config = GameConfig.STANDARD;
+        List<Socket> sockets = new ArrayList<>();
+        try (SpectatorHub hub = new SpectatorHub(0, config, 256, 1000)) {
+            for (int i = 0; i < watchers; i++) {
+                Socket socket = new Socket();
+                if (i < stalled) socket.setReceiveBufferSize(1024);
+                socket.connect(new InetSocketAddress("localhost", hub.getLocalPort()));
+                sockets.add(socket);
+                if (i >= stalled) {
+                    Thread reader = GameServer.daemon("watcher").newThread(() -> drain(socket));
+                    reader.start();
+                }
+            }
+            while (hub.getSpectatorsJoined() < watchers) Thread.sleep(10);
+
+            SplittableRandom random = new SplittableRandom(1);
+            long start = System.nanoTime();
+            for (int i = 0; i < events; i++) {
+                int result = random.nextInt(4);
+                hub.publish(i & 1, random.nextInt(config.cells()), result == 0 ? "HIT" : result == 1 ? "SUNK" : "MISS");
+                LockSupport.parkNanos(gapMicros * 1000);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            Thread.sleep(200);
+            System.out.printf("Published %,d events to %d spectators (%d stalled) in %.2f s%n", events, watchers,
+                    stalled, seconds);
+            System.out.println(hub.report());
+        } finally {
+            for (Socket socket : sockets) socket.close();
+        }
+    }
+
+    private static void drain(Socket socket) {
+        byte[] sink = new byte[8192];
+        try {
+            while (socket.getInputStream().read(sink) >= 0) {
+                // Discard
+            }
+        } catch (IOException e) {
+            // Closed
+        }
+    }
+
+    // One line summary of the fan-out metrics
+    public String report() {
+        return String.format("[spectators] %d watching, %d joined, %d dropped | frames %d delivered, %d dropped, "
+                        + "%d snapshots | latency p50 <%d us, p99 <%d us",
+                spectators.size(), spectatorsJoined.get(), spectatorsDropped.get(), framesDelivered.get(),
+                framesDropped.get(), snapshotsSent.get(), latencyPercentile(0.5) / 1000, latencyPercentile(0.99) / 1000);
+    }
+
+    // Stop accepting spectators and disconnect the ones watching
+    @Override
+    public void close() throws IOException {
+        running = false;
+        server.close();
+        for (Spectator s : spectators) remove(s, false);
+        writers.shutdownNow();
+    }
+
+    private void accept() {
+        while (running) {
+            try {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                Spectator s = new Spectator(socket);
+                spectators.add(s); // Before the writer takes its first snapshot, so no event falls in between
+                spectatorsJoined.incrementAndGet();
+                writers.execute(s);
+            } catch (IOException e) {
+                if (!running) return;
+            } catch (RejectedExecutionException e) {
+                return; // Closing
+            }
+        }
+    }
+
+    private void remove(Spectator s, boolean dropped) {
+        if (!spectators.remove(s)) return;
+        if (dropped) spectatorsDropped.incrementAndGet();
+        s.closed = true;
+        try {
+            s.socket.close(); // Also wakes a writer blocked in a socket write
+        } catch (IOException e) {
+            // Going anyway
+        }
+        LockSupport.unpark(s.thread);
+    }
+
+    // One watcher: a single-producer, single-consumer ring filled by publish() and drained by run()
+    private final class Spectator implements Runnable {
+        final Socket socket;
+        final long[] frames = new long[ringCapacity];
+        final long[] stamps = new long[ringCapacity];
+        final int mask = ringCapacity - 1;
+        volatile long head;               // Next slot to write out; advanced by the writer
+        volatile long tail;               // Next slot to fill; advanced by publish()
+        volatile boolean lagging;         // Set by publish() when the ring overflowed
+        long laggingSince;                // Only touched by publish()
+        volatile boolean closed;
+        volatile boolean parked;          // The writer is about to park or parked; publish() must wake it
+        volatile Thread thread;
+        private final byte[] buf = new byte[8192];
+        private int len;
+        private OutputStream out;
+
+        Spectator(Socket socket) {
+            this.socket = socket;
+        }
+
+        boolean offer(long frame, long stamp) {
+            long t = tail;
+            if (t - head == frames.length) return false;
+            frames[(int) t & mask] = frame;
+            stamps[(int) t & mask] = stamp;
+            tail = t + 1;
+            return true;
+        }
+
+        @Override
+        public void run() {
+            thread = Thread.currentThread();
+            try {
+                out = socket.getOutputStream();
+                put("SPECTATE ").put(config.toString()).put('\n');
+                sendSnapshot();
+                while (!closed) {
+                    if (lagging) {
+                        head = tail;     // publish() has stopped filling the ring, so it is ours to empty
+                        lagging = false; // From here on events reach the ring again...
+                        sendSnapshot();  // ...and everything before them is in the snapshot
+                        continue;
+                    }
+                    long h = head;
+                    long t = tail;
+                    if (h == t) {
+                        parked = true;
+                        if (tail == t && !lagging && !closed) LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+                        parked = false;
+                        continue;
+                    }
+                    for (long i = h; i < t; i++) putFrame(frames[(int) i & mask]);
+                    writeOut();
+                    long now = System.nanoTime();
+                    for (long i = h; i < t; i++) latency.record(now - stamps[(int) i & mask]);
+                    framesDelivered.addAndGet(t - h);
+                    head = t;
+                }
+            } catch (IOException e) {
+                // Spectator went away or was dropped
+            } finally {
+                remove(this, false);
+            }
+        }
+
+        private void sendSnapshot() throws IOException {
+            long events = published; // Read first, so the board contents below include every event up to here
+            put("SNAPSHOT ").put(Long.toString(events));
+            for (byte[] board : boards) {
+                put(' ');
+                for (byte b : board) put((char) b);
+            }
+            put('\n');
+            writeOut();
+            snapshotsSent.incrementAndGet();
+        }
+
+        private void putFrame(long frame) throws IOException {
+            int cell = (int) frame;
+            int player = (int) (frame >>> 40);
+            put("ATTACK ").put((char) ('1' + player)).put(' ');
+            put(BoardNotation.format(cell / config.cols(), cell % config.cols())).put(' ');
+            put(BinaryWire.decodeResult((byte) (frame >>> 32))).put('\n');
+        }
+
+        private Spectator put(String s) throws IOException {
+            for (int i = 0; i < s.length(); i++) put(s.charAt(i));
+            return this;
+        }
+
+        private Spectator put(char c) throws IOException {
+            if (len == buf.length) writeOut();
+            buf[len++] = (byte) c;
+            return this;
+        }
+
+        private void writeOut() throws IOException {
+            out.write(buf, 0, len);
+            len = 0;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.battleship;
+
+// This class SpreadPlacement keeps ships from touching, not even at a corner, so sinking one ship tells the opponent
+// nothing about the cells around it. It draws uniform layouts until one has no contacts, keeping the one with the
+// fewest if none of ATTEMPTS does (on a crowded board there may be no such layout at all).
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+public class SpreadPlacement implements PlacementStrategy {
+    private static final int ATTEMPTS = 64;
+
+    private GameConfig config;
+    private int[] fleet;
+    private FleetGenerator generator;
+    private int[] candidate = new int[0];
+    private int[] owner = new int[0]; // Ship index + 1 on each cell of the candidate, 0 for water
+
+    @Override
+    public void place(GameConfig config, int[] layout, SplittableRandom random) {
+        if (!config.equals(this.config)) {
+            this.config = config;
+            fleet = config.fleet();
+            generator = new FleetGenerator(config);
+            candidate = new int[layout.length];
+            owner = new int[config.cells()];
+        }
+        int fewest = Integer.MAX_VALUE;
+        for (int attempt = 0; attempt < ATTEMPTS && fewest > 0; attempt++) {
+            generator.generate(candidate, random);
+            int contacts = contacts();
+            if (contacts < fewest) {
+                fewest = contacts;
+                System.arraycopy(candidate, 0, layout, 0, layout.length);
+            }
+        }
+    }
+
+    // Pairs of cells of different ships that touch, diagonally included
+    private int contacts() {
+        int rows = config.rows();
+        int cols = config.cols();
+        Arrays.fill(owner, 0);
+        int contacts = 0;
+        for (int i = 0; i < candidate.length; i++) {
+            int ship = i + 1;
+            int entry = candidate[i];
+            int step = FleetGenerator.isVertical(entry) ? cols : 1;
+            for (int j = 0, cell = FleetGenerator.startCell(entry); j < fleet[i]; j++, cell += step) owner[cell] = ship;
+        }
+        for (int cell = 0; cell < owner.length; cell++) {
+            int ship = owner[cell];
+            if (ship == 0) continue;
+            int r = cell / cols;
+            int c = cell % cols;
+            // Look only forwards (right, and the row below) so each touching pair is counted once
+            if (c + 1 < cols && differs(ship, owner[cell + 1])) contacts++;
+            if (r + 1 < rows) {
+                if (c > 0 && differs(ship, owner[cell + cols - 1])) contacts++;
+                if (differs(ship, owner[cell + cols])) contacts++;
+                if (c + 1 < cols && differs(ship, owner[cell + cols + 1])) contacts++;
+            }
+        }
+        return contacts;
+    }
+
+    private static boolean differs(int ship, int other) {
+        return other != 0 && other != ship;
+    }
+}
@@ -1,60 +1,126 @@
 package com.battleship;
 
 // This class represents the first place we go when starting up the BattleShip game. When starting, a user defines if they want to host or 
-// be a client, which will then send them to the correct respective NetworkedGame board.
+// be a client, which will then send them to the correct respective NetworkedGame board. It can also run a multi-game
+// GameServer, or join one and be paired with the next waiting player.
+// A host picks the board and fleet with --board ROWSxCOLS and --fleet len,len,...; the other player adopts them.
+// --resume <file> picks up a direct game from the snapshot an earlier run wrote with -Dbattleship.snapshot=<file>;
+// connect the same way as when the game started.
+// --seed <n> places our fleet the way a game with that seed did before; every game prints the seed it runs on.
+// --script <file> (or - for stdin) answers these questions and plays the game's attacks from a script; see ConsoleIO.
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.net.*;
-import java.util.Scanner;
+import java.nio.file.Paths;
 
 public class StartGame {
     public static void main(String[] args) {
-        Scanner scanner = new Scanner(System.in);
+        Metrics.start(); // Only does something with -Dbattleship.metrics=true
+        ConsoleIO console = ConsoleIO.system();
         Socket socket = null;
+        ServerSocket listener = null;
         NetworkedGame.Role role = null;
+        boolean declareFleet = false;
 
         try {
+            console = ConsoleIO.fromArgs(args);
+            GameSnapshot saved = null;
+            for (int i = 0; i + 1 < args.length; i++) {
+                if (args[i].equals("--resume")) saved = GameSnapshot.load(Paths.get(args[i + 1]));
+            }
+
             // Ask user: Host or Client?
             // Adding something for gui branch
-            System.out.print("Are you hosting or connecting? (h/c): ");
-            String choice = scanner.nextLine().trim().toLowerCase();
+            String choice = ask(console, "Are you hosting, connecting, running a server or joining one? (h/c/s/j): ")
+                    .toLowerCase();
 
             if (choice.equals("h")) {
                 role = NetworkedGame.Role.HOST;
 
                 // Prompt for port number to host on
-                System.out.print("Enter port to host on (e.g., 5000 for localhost): ");
-                int port = Integer.parseInt(scanner.nextLine());
+                int port = Integer.parseInt(ask(console, "Enter port to host on (e.g., 5000 for localhost): "));
 
-                // Set up a server socket and wait for incoming connection
-                ServerSocket serverSocket = new ServerSocket(port);
-                System.out.println("Waiting for a connection on port " + port + "...");
-                socket = serverSocket.accept(); // Blocking until client connects
-                System.out.println("Client connected from " + socket.getInetAddress());
+                // Set up a server socket and wait for incoming connection; it stays open so a dropped client can come back
+                listener = new ServerSocket(port);
+                console.println("Waiting for a connection on port " + port + "...");
+                console.flush();
+                socket = listener.accept(); // Blocking until client connects
+                console.println("Client connected from " + socket.getInetAddress());
 
             } else if (choice.equals("c")) {
                 role = NetworkedGame.Role.CLIENT;
 
                 // Prompt for host IP and port
-                System.out.print("Enter host IP address (e.g., 127.0.0.1): ");
-                String ip = scanner.nextLine();
-                System.out.print("Enter port to connect to (e.g., 5000): ");
-                int port = Integer.parseInt(scanner.nextLine());
+                String ip = ask(console, "Enter host IP address (e.g., 127.0.0.1): ");
+                int port = Integer.parseInt(ask(console, "Enter port to connect to (e.g., 5000): "));
 
                 // Connect to the host
                 socket = new Socket(ip, port);
-                System.out.println("Connected to host at " + ip + ":" + port);
+                console.println("Connected to host at " + ip + ":" + port);
+            } else if (choice.equals("s")) {
+                // Run the multi-game server until the process is killed
+                int port = Integer.parseInt(ask(console, "Enter port to serve on (e.g., 5000): "));
+                console.flush();
+                new GameServer(port, 5).run();
+                return;
+
+            } else if (choice.equals("j")) {
+                // Prompt for server IP and port
+                String ip = ask(console, "Enter server IP address (e.g., 127.0.0.1): ");
+                int port = Integer.parseInt(ask(console, "Enter port to connect to (e.g., 5000): "));
+
+                // Join the lobby and wait for the server to pair us and assign a role
+                socket = new Socket(ip, port);
+                socket.setTcpNoDelay(true);
+                console.println("Joined server at " + ip + ":" + port + ", waiting for an opponent...");
+                console.flush();
+                String match = Wire.readLine(socket.getInputStream());
+                if (match == null || !match.startsWith("MATCH ")) {
+                    console.println("Server closed the connection. Exiting.");
+                    socket.close();
+                    return;
+                }
+                role = match.startsWith("MATCH HOST") ? NetworkedGame.Role.HOST : NetworkedGame.Role.CLIENT;
+                declareFleet = match.endsWith(" " + MatchEngine.FLEET); // An authoritative server checks our moves
+                console.println("Opponent found. You play as " + role + ".");
             } else {
-                System.out.println("Invalid choice. Exiting.");
+                console.println("Invalid choice. Exiting.");
                 return;
             }
 
-            // Launch the game using the shared game class
-            NetworkedGame game = new NetworkedGame(role, socket);
+            boolean direct = choice.equals("h") || choice.equals("c");
+            if (saved != null && (!direct || saved.host != (role == NetworkedGame.Role.HOST) || saved.session == 0)) {
+                console.println("That snapshot can't be resumed from here: connect as the "
+                        + (saved.host ? "host (h)" : "client (c)") + " of a direct game.");
+                socket.close();
+                return;
+            }
+
+            // Launch the game using the shared game class; -Dbattleship.binary=true asks for the compact wire protocol
+            NetworkedGame game = saved != null
+                    ? new NetworkedGame(socket, saved, listener)
+                    : new NetworkedGame(role, socket, Boolean.getBoolean("battleship.binary"), GameConfig.fromArgs(args),
+                            listener);
+            if (saved == null) game.setSeed(GameSeed.fromArgs(args));
+            if (declareFleet) game.declareFleet();
+            game.setConsole(console);
             game.start();
 
-        } catch (IOException | NumberFormatException e) {
+        } catch (IOException | IllegalArgumentException e) {
+            console.flush();
             e.printStackTrace();
+        } finally {
+            console.flush();
         }
     }
+
+    // Ask a question and return the trimmed answer; a script's answer is echoed after the question
+    private static String ask(ConsoleIO console, String question) throws IOException {
+        console.print(question);
+        String answer = console.readLine();
+        if (answer == null) throw new EOFException("No answer to: " + question.trim());
+        if (console.isScripted()) console.println(answer);
+        return answer.trim();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.battleship;
+
+// This interface TargetingStrategy is a computer player's shooter, plugged into SimulatedGame. Cells are packed indices
+// (row * cols + col). One instance plays many games in a row, so implementations should reuse their state in
+// reset() instead of allocating per game or per shot.
+
+import java.util.SplittableRandom;
+
+public interface TargetingStrategy {
+    // Start a new game against a rows x cols board carrying ships of the given lengths
+    void reset(int rows, int cols, int[] fleet, SplittableRandom random);
+
+    // The cell to fire at next; must be one that has not been fired at this game
+    int nextShot();
+
+    // The outcome of the shot at cell: "MISS", "HIT" or "SUNK"
+    void onResult(int cell, String result);
+}
@@ -0,0 +1,195 @@
+package com.battleship;
+
+// This class TextWire is the original line protocol: a move is a line like "B4", a result is a line with HIT, MISS, SUNK
+// or WIN, and either side may send DISCONNECT or, if heartbeats were agreed, PING. Lines are only pushed to the socket
+// on flush(). Moves use BoardNotation, so columns past Z are written AA, AB, ... and the same lines work on any board
+// size. Lines are ASCII and are cut out of a pooled byte buffer by hand rather than through a Reader and a Writer,
+// each of which would hold 8 KB or more per connection.
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+class TextWire implements Wire {
+    private static final byte[] DISCONNECT_LINE = {'D', 'I', 'S', 'C', 'O', 'N', 'N', 'E', 'C', 'T'};
+
+    private final InputStream in;
+    private final OutputStream out;
+    private byte[] receiveBuffer; // Borrowed from the BufferPool while in use, null while parked
+    private int receivePos;
+    private int receiveLimit;
+    private byte[] sendBuffer;    // Likewise
+    private int sendCount;
+    private Coordinate lastMove;
+    private String lastResult;
+
+    TextWire(Socket socket) throws IOException {
+        this(socket.getInputStream(), socket.getOutputStream());
+    }
+
+    TextWire(InputStream in, OutputStream out) {
+        this.in = in;
+        this.out = out;
+    }
+
+    @Override
+    public void sendMove(Coordinate c) throws IOException {
+        sendLine(serializeCoordinate(c));
+    }
+
+    @Override
+    public void sendResult(String result) throws IOException {
+        sendLine(result);
+    }
+
+    @Override
+    public void sendDisconnect() throws IOException {
+        sendLine("DISCONNECT");
+    }
+
+    @Override
+    public void sendPing() throws IOException {
+        sendLine("PING");
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (sendCount == 0) return;
+        out.write(sendBuffer, 0, sendCount);
+        out.flush();
+        sendCount = 0;
+    }
+
+    // Lines are ASCII, so each char is one byte
+    private void sendLine(String line) throws IOException {
+        int n = line.length();
+        if (sendBuffer == null) sendBuffer = BufferPool.SHARED.borrow();
+        if (sendCount + n + 1 > sendBuffer.length) flush();
+        if (n + 1 > sendBuffer.length) throw new IOException("Line too long: " + line);
+        for (int i = 0; i < n; i++) sendBuffer[sendCount++] = (byte) line.charAt(i);
+        sendBuffer[sendCount++] = '\n';
+    }
+
+    @Override
+    public int read() throws IOException {
+        int end = lineEnd();
+        if (end < 0) return CLOSED;
+        byte[] line = receiveBuffer;
+        int start = receivePos;
+        int length = end > start && line[end - 1] == '\r' ? end - 1 - start : end - start;
+        receivePos = end + 1;
+        if (length == DISCONNECT_LINE.length && equalsIgnoreCase(line, start, DISCONNECT_LINE)) return DISCONNECT;
+        // Results come back as the constant strings Board.attack returns, so no String is allocated for them
+        switch (length == 3 || length == 4 ? line[start] : 0) {
+            case 'H':
+                if (is(line, start, length, "HIT")) return result("HIT");
+                break;
+            case 'M':
+                if (is(line, start, length, "MISS")) return result("MISS");
+                break;
+            case 'S':
+                if (is(line, start, length, "SUNK")) return result("SUNK");
+                break;
+            case 'W':
+                if (is(line, start, length, "WIN")) return result("WIN");
+                break;
+            case 'P':
+                if (is(line, start, length, "PING")) return PING;
+                break;
+            default:
+                break;
+        }
+        try {
+            lastMove = deserializeCoordinate(new String(line, start, length, StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            return INVALID; // Neither a keyword nor a cell
+        }
+        return MOVE;
+    }
+
+    private int result(String result) {
+        lastResult = result;
+        return RESULT;
+    }
+
+    private static boolean is(byte[] line, int start, int length, String word) {
+        if (length != word.length()) return false;
+        for (int i = 0; i < length; i++) {
+            if (line[start + i] != word.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static boolean equalsIgnoreCase(byte[] line, int start, byte[] upper) {
+        for (int i = 0; i < upper.length; i++) {
+            int b = line[start + i];
+            if (b >= 'a' && b <= 'z') b -= 'a' - 'A';
+            if (b != upper[i]) return false;
+        }
+        return true;
+    }
+
+    // Index of the newline that ends the next line, reading until it has arrived; -1 if the stream ends first.
+    // Nothing is consumed here, so a read that times out half way through a line picks up where it stopped.
+    private int lineEnd() throws IOException {
+        if (receiveBuffer == null) {
+            receiveBuffer = BufferPool.SHARED.borrow();
+            receivePos = 0;
+            receiveLimit = 0;
+        }
+        int scanned = receivePos;
+        while (true) {
+            for (; scanned < receiveLimit; scanned++) {
+                if (receiveBuffer[scanned] == '\n') return scanned;
+            }
+            if (receiveLimit == receiveBuffer.length) {
+                if (receivePos == 0) throw new IOException("Line too long");
+                System.arraycopy(receiveBuffer, receivePos, receiveBuffer, 0, receiveLimit - receivePos);
+                scanned -= receivePos;
+                receiveLimit -= receivePos;
+                receivePos = 0;
+            }
+            int n = in.read(receiveBuffer, receiveLimit, receiveBuffer.length - receiveLimit);
+            if (n <= 0) return -1;
+            receiveLimit += n;
+        }
+    }
+
+    @Override
+    public boolean park() {
+        if (receivePos < receiveLimit || sendCount > 0) return false;
+        if (receiveBuffer != null) BufferPool.SHARED.release(receiveBuffer);
+        if (sendBuffer != null) BufferPool.SHARED.release(sendBuffer);
+        receiveBuffer = null;
+        sendBuffer = null;
+        return true;
+    }
+
+    @Override
+    public Coordinate lastMove() {
+        return lastMove;
+    }
+
+    @Override
+    public String lastResult() {
+        return lastResult;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+        out.close();
+    }
+
+    /** Convert a Coordinate to a string like "B4" */
+    static String serializeCoordinate(Coordinate c) {
+        return BoardNotation.format(c.row, c.col);
+    }
+
+    /** Convert a string like "C5" to a Coordinate object */
+    static Coordinate deserializeCoordinate(String s) {
+        Coordinate c = BoardNotation.parseCoordinate(s);
+        if (c == null) throw new IllegalArgumentException("Malformed coordinate: " + s);
+        return c;
+    }
+}
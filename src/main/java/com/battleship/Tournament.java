@@ -0,0 +1,391 @@
+package com.battleship;
+
+// This class Tournament runs a round-robin league between computer players, each a TargetingStrategy paired with a
+// PlacementStrategy: every pair of entrants plays the same number of games, moving first in alternate games, and the
+// league ends with an Elo-style ranking and its throughput.
+//
+// The games are cut into chunks of CHUNK_GAMES from one pairing, and the chunks are run on a work-stealing ForkJoinPool
+// a wave at a time. Every worker thread keeps its own SimulatedGame, its own strategy instances and its own tally of
+// results, so games are played and counted without any shared state; the tallies are only added up between waves, when
+// the pool is idle. Each chunk draws from a SplittableRandom seeded by the league seed and the chunk number, so the
+// results depend only on the seed, not on the thread count or on where a resumed league picked up.
+//
+// With a checkpoint file the totals are written out (to a temporary file, then moved into place) at most every
+// CHECKPOINT_SECONDS between waves and when the league ends; started again with the same file, entrants, games and
+// seed, the league carries on after the last wave saved.
+//
+// Ratings are the Bradley-Terry fit of the head-to-head results on the Elo scale (400 points = 10:1 odds, mean 1500),
+// which, unlike updating Elo game by game, doesn't depend on the order the games were played in.
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+public class Tournament {
+    private static final int CHUNK_GAMES = 250;     // Games of one pairing a task plays
+    private static final int WAVE_CHUNKS = 64;      // Chunks run between chances to checkpoint
+    private static final long CHECKPOINT_SECONDS = 5;
+    private static final String FORMAT = "battleship-tournament 1";
+
+    // A computer player: a name for the table and a fresh instance of each strategy per worker thread
+    public static class Entrant {
+        final String name;
+        final Supplier<? extends TargetingStrategy> targeting;
+        final Supplier<? extends PlacementStrategy> placement;
+
+        public Entrant(String name, Supplier<? extends TargetingStrategy> targeting,
+                       Supplier<? extends PlacementStrategy> placement) {
+            if (name.isEmpty() || name.contains("\t") || name.contains("\n")) {
+                throw new IllegalArgumentException("Bad entrant name: " + name);
+            }
+            this.name = name;
+            this.targeting = targeting;
+            this.placement = placement;
+        }
+    }
+
+    private final GameConfig config;
+    private final List<Entrant> entrants;
+    private final int gamesPerPairing;
+    private final long seed;
+    private final int[] first;   // Pairing p is entrant first[p] against entrant second[p]
+    private final int[] second;
+    private final int chunksPerPairing;
+    private final int chunks;
+
+    // League totals per pairing
+    private final long[] games;
+    private final long[] firstWins;
+    private final long[] firstWinShots;  // Shots the first entrant of the pairing needed, summed over its wins
+    private final long[] secondWinShots;
+    private int chunksDone;
+
+    private final List<Worker> workers = Collections.synchronizedList(new ArrayList<>());
+    private final ThreadLocal<Worker> worker = ThreadLocal.withInitial(this::newWorker);
+
+    public Tournament(GameConfig config, List<Entrant> entrants, int gamesPerPairing, long seed) {
+        if (entrants.size() < 2) throw new IllegalArgumentException("A league needs at least two entrants");
+        this.config = config;
+        this.entrants = new ArrayList<>(entrants);
+        this.gamesPerPairing = gamesPerPairing;
+        this.seed = seed;
+        int n = entrants.size();
+        int pairings = n * (n - 1) / 2;
+        first = new int[pairings];
+        second = new int[pairings];
+        for (int a = 0, p = 0; a < n; a++) {
+            for (int b = a + 1; b < n; b++, p++) {
+                first[p] = a;
+                second[p] = b;
+            }
+        }
+        chunksPerPairing = (gamesPerPairing + CHUNK_GAMES - 1) / CHUNK_GAMES;
+        chunks = pairings * chunksPerPairing;
+        games = new long[pairings];
+        firstWins = new long[pairings];
+        firstWinShots = new long[pairings];
+        secondWinShots = new long[pairings];
+    }
+
+    // Every targeting strategy with every placement strategy, on the standard board
+    public static List<Entrant> standardEntrants() {
+        List<Entrant> entrants = new ArrayList<>();
+        String[] targetingNames = {"Random", "HuntTarget", "ProbabilityDensity"};
+        List<Supplier<TargetingStrategy>> targeting =
+                List.of(RandomStrategy::new, HuntTargetStrategy::new, ProbabilityDensityStrategy::new);
+        String[] placementNames = {"Random", "Spread", "Edge"};
+        List<Supplier<PlacementStrategy>> placement =
+                List.of(RandomPlacement::new, SpreadPlacement::new, EdgePlacement::new);
+        for (int t = 0; t < targeting.size(); t++) {
+            for (int p = 0; p < placement.size(); p++) {
+                entrants.add(new Entrant(targetingNames[t] + "/" + placementNames[p], targeting.get(t), placement.get(p)));
+            }
+        }
+        return entrants;
+    }
+
+    // Arguments: games per pairing, seed, and optionally a checkpoint file to resume from and save to
+    public static void main(String[] args) throws IOException {
+        int gamesPerPairing = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+        Path checkpoint = args.length > 2 ? Paths.get(args[2]) : null;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        Tournament league = new Tournament(GameConfig.STANDARD, standardEntrants(), gamesPerPairing, seed);
+        if (checkpoint != null && Files.exists(checkpoint)) {
+            league.load(checkpoint);
+            System.out.printf("Resuming from %s: %,d of %,d games already played%n", checkpoint, league.gamesPlayed(),
+                    league.totalGames());
+        }
+        long before = league.gamesPlayed();
+        long start = System.nanoTime();
+        league.run(threads, checkpoint);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long played = league.gamesPlayed() - before;
+
+        System.out.print(league.table());
+        System.out.printf("%d entrants, %d pairings x %,d games, seed %d: played %,d games in %.2f s on %d threads, "
+                        + "%,.0f games/s, %,.0f games/s per core%n", league.entrants.size(), league.first.length,
+                gamesPerPairing, seed, played, seconds, threads, played / seconds, played / seconds / threads);
+    }
+
+    // Play every chunk not yet played, checkpointing to the file if there is one
+    public void run(int threads, Path checkpoint) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            long lastSave = System.nanoTime();
+            while (chunksDone < chunks) {
+                int end = Math.min(chunks, chunksDone + WAVE_CHUNKS);
+                pool.invoke(new Wave(chunksDone, end));
+                collect();
+                chunksDone = end;
+                if (checkpoint != null
+                        && (chunksDone == chunks || System.nanoTime() - lastSave >= CHECKPOINT_SECONDS * 1_000_000_000L)) {
+                    save(checkpoint);
+                    lastSave = System.nanoTime();
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public long gamesPlayed() {
+        long total = 0;
+        for (long g : games) total += g;
+        return total;
+    }
+
+    public long totalGames() {
+        return (long) first.length * gamesPerPairing;
+    }
+
+    // Elo ratings, in entrant order
+    public double[] ratings() {
+        int n = entrants.size();
+        // Every pairing starts with one drawn game, so an entrant that never won still gets a finite rating
+        double[][] played = new double[n][n];
+        double[] won = new double[n];
+        for (int p = 0; p < first.length; p++) {
+            int a = first[p];
+            int b = second[p];
+            played[a][b] = played[b][a] = games[p] + 1;
+            won[a] += firstWins[p] + 0.5;
+            won[b] += games[p] - firstWins[p] + 0.5;
+        }
+        double[] strength = new double[n];
+        Arrays.fill(strength, 1);
+        for (int iteration = 0; iteration < 1000; iteration++) {
+            double[] next = new double[n];
+            double logSum = 0;
+            for (int i = 0; i < n; i++) {
+                double denominator = 0;
+                for (int j = 0; j < n; j++) {
+                    if (j != i) denominator += played[i][j] / (strength[i] + strength[j]);
+                }
+                next[i] = won[i] / denominator;
+                logSum += Math.log(next[i]);
+            }
+            double scale = Math.exp(logSum / n); // Keep the geometric mean at 1, i.e. the mean rating at 1500
+            double change = 0;
+            for (int i = 0; i < n; i++) {
+                next[i] /= scale;
+                change = Math.max(change, Math.abs(next[i] - strength[i]) / strength[i]);
+            }
+            strength = next;
+            if (change < 1e-9) break;
+        }
+        double[] elo = new double[n];
+        for (int i = 0; i < n; i++) elo[i] = 1500 + 400 * Math.log10(strength[i]);
+        return elo;
+    }
+
+    // The ranking, best first: rating, games, share won and shots needed per win
+    public String table() {
+        int n = entrants.size();
+        double[] elo = ratings();
+        long[] played = new long[n];
+        long[] won = new long[n];
+        long[] winShots = new long[n];
+        for (int p = 0; p < first.length; p++) {
+            played[first[p]] += games[p];
+            played[second[p]] += games[p];
+            won[first[p]] += firstWins[p];
+            won[second[p]] += games[p] - firstWins[p];
+            winShots[first[p]] += firstWinShots[p];
+            winShots[second[p]] += secondWinShots[p];
+        }
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (x, y) -> Double.compare(elo[y], elo[x]));
+
+        StringBuilder sb = new StringBuilder(String.format("%4s  %-28s %6s %10s %7s %9s%n", "Rank", "Entrant", "Elo",
+                "Games", "Won", "Shots/win"));
+        for (int rank = 0; rank < n; rank++) {
+            int i = order[rank];
+            sb.append(String.format("%4d  %-28s %6.0f %,10d %6.1f%% %9.1f%n", rank + 1, entrants.get(i).name, elo[i],
+                    played[i], played[i] == 0 ? 0 : 100.0 * won[i] / played[i],
+                    won[i] == 0 ? 0 : (double) winShots[i] / won[i]));
+        }
+        return sb.toString();
+    }
+
+    // Write the league's progress so far; the file is replaced in one step, so a crash leaves the previous one intact
+    public void save(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            out.write(FORMAT + "\n");
+            out.write("config\t" + config + "\n");
+            out.write("games\t" + gamesPerPairing + "\n");
+            out.write("seed\t" + seed + "\n");
+            out.write("chunks-done\t" + chunksDone + "\n");
+            for (int p = 0; p < first.length; p++) {
+                out.write(String.join("\t", "pair", entrants.get(first[p]).name, entrants.get(second[p]).name,
+                        Long.toString(games[p]), Long.toString(firstWins[p]), Long.toString(firstWinShots[p]),
+                        Long.toString(secondWinShots[p])) + "\n");
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Pick up a league saved by save(); it must have the same config, entrants, games per pairing and seed
+    public void load(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        if (lines.size() != 5 + first.length || !lines.get(0).equals(FORMAT)) {
+            throw new IOException(file + " is not a checkpoint of this league");
+        }
+        expect(file, lines.get(1), "config\t" + config);
+        expect(file, lines.get(2), "games\t" + gamesPerPairing);
+        expect(file, lines.get(3), "seed\t" + seed);
+        try {
+            String[] done = lines.get(4).split("\t");
+            if (!done[0].equals("chunks-done")) throw new IOException(file + ": expected chunks-done");
+            int saved = Integer.parseInt(done[1]);
+            for (int p = 0; p < first.length; p++) {
+                String[] f = lines.get(5 + p).split("\t");
+                if (f.length != 7 || !f[0].equals("pair") || !f[1].equals(entrants.get(first[p]).name)
+                        || !f[2].equals(entrants.get(second[p]).name)) {
+                    throw new IOException(file + " has different entrants: " + lines.get(5 + p));
+                }
+                games[p] = Long.parseLong(f[3]);
+                firstWins[p] = Long.parseLong(f[4]);
+                firstWinShots[p] = Long.parseLong(f[5]);
+                secondWinShots[p] = Long.parseLong(f[6]);
+            }
+            chunksDone = saved;
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException(file + " is corrupt", e);
+        }
+    }
+
+    private static void expect(Path file, String line, String wanted) throws IOException {
+        if (!line.equals(wanted)) throw new IOException(file + " is for a different league: " + line + ", not " + wanted);
+    }
+
+    // Add every worker's tally into the league totals and clear it; only called while the pool is idle
+    private void collect() {
+        synchronized (workers) {
+            for (Worker w : workers) {
+                for (int p = 0; p < first.length; p++) {
+                    games[p] += w.games[p];
+                    firstWins[p] += w.firstWins[p];
+                    firstWinShots[p] += w.firstWinShots[p];
+                    secondWinShots[p] += w.secondWinShots[p];
+                }
+                w.clear();
+            }
+        }
+    }
+
+    private Worker newWorker() {
+        Worker w = new Worker();
+        workers.add(w);
+        return w;
+    }
+
+    // Chunks are numbered so consecutive chunks belong to different pairings, which keeps a partly played league even
+    private void playChunk(int chunk) {
+        int p = chunk % first.length;
+        int from = chunk / first.length * CHUNK_GAMES;
+        int to = Math.min(gamesPerPairing, from + CHUNK_GAMES);
+        SplittableRandom random = new SplittableRandom(seed ^ chunk * 0x9E3779B97F4A7C15L);
+        Worker w = worker.get();
+        TargetingStrategy a = w.targeting(first[p]);
+        TargetingStrategy b = w.targeting(second[p]);
+        PlacementStrategy aFleet = w.placement(first[p]);
+        PlacementStrategy bFleet = w.placement(second[p]);
+        for (int i = from; i < to; i++) {
+            boolean aFirst = (i & 1) == 0;
+            int winner = aFirst ? w.game.play(a, b, aFleet, bFleet, random) : w.game.play(b, a, bFleet, aFleet, random);
+            int shots = w.game.shotsFired(winner);
+            w.games[p]++;
+            if ((winner == 0) == aFirst) {
+                w.firstWins[p]++;
+                w.firstWinShots[p] += shots;
+            } else {
+                w.secondWinShots[p] += shots;
+            }
+        }
+    }
+
+    // One worker thread's game, strategies and tally
+    private class Worker {
+        final SimulatedGame game = new SimulatedGame(config);
+        final TargetingStrategy[] targeting = new TargetingStrategy[entrants.size()];
+        final PlacementStrategy[] placement = new PlacementStrategy[entrants.size()];
+        final long[] games = new long[first.length];
+        final long[] firstWins = new long[first.length];
+        final long[] firstWinShots = new long[first.length];
+        final long[] secondWinShots = new long[first.length];
+
+        TargetingStrategy targeting(int entrant) {
+            if (targeting[entrant] == null) targeting[entrant] = entrants.get(entrant).targeting.get();
+            return targeting[entrant];
+        }
+
+        PlacementStrategy placement(int entrant) {
+            if (placement[entrant] == null) placement[entrant] = entrants.get(entrant).placement.get();
+            return placement[entrant];
+        }
+
+        void clear() {
+            Arrays.fill(games, 0);
+            Arrays.fill(firstWins, 0);
+            Arrays.fill(firstWinShots, 0);
+            Arrays.fill(secondWinShots, 0);
+        }
+    }
+
+    // Chunks [from, to), split in half until a task holds a single chunk
+    private class Wave extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        Wave(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Wave(from, mid), new Wave(mid, to));
+            } else {
+                playChunk(from);
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.battleship;
+
+// This interface Wire is how two peers exchange moves and results. TextWire keeps the original "B4" / "HIT" lines and
+// BinaryWire packs each message into one or two bytes. Which one a game uses is agreed by the Handshake when the socket
+// connects.
+// Sends are buffered until flush(), so callers flush once before they wait for the other side.
+// A wire's buffers come from the BufferPool; park() hands them back while the connection is idle and the next send or
+// read borrows them again, so an idle wire is a few dozen bytes.
+
+import java.io.*;
+import java.net.Socket;
+
+interface Wire extends Closeable {
+    // Kinds of message returned by read()
+    int MOVE = 1;
+    int RESULT = 2;
+    int DISCONNECT = 3; // The peer said DISCONNECT
+    int PING = 4;       // Heartbeat; carries nothing and needs no answer
+    int CLOSED = 5;     // The stream ended without a DISCONNECT, e.g. the connection dropped
+    int INVALID = 6;    // Something that is not a message arrived; it has been taken off the wire
+
+    String TEXT = "TEXT";
+    String BINARY = "BINARY";
+
+    void sendMove(Coordinate c) throws IOException;
+
+    // result is one of HIT, MISS, SUNK or WIN
+    void sendResult(String result) throws IOException;
+
+    void sendDisconnect() throws IOException;
+
+    // Only sent when the Handshake agreed on heartbeats, since older peers don't understand it
+    void sendPing() throws IOException;
+
+    // Push everything sent so far to the peer in one write
+    void flush() throws IOException;
+
+    // Block for the next message and return its kind; the payload is then available from lastMove() or lastResult().
+    // Nothing is taken off the wire until a whole message has arrived, so after a socket timeout read() can be retried.
+    int read() throws IOException;
+
+    // Give the buffers back to the BufferPool; false, keeping them, if unread input or unflushed output is still there.
+    // Only the thread that reads the wire may park it.
+    boolean park();
+
+    Coordinate lastMove();
+
+    String lastResult();
+
+    // Build the wire for a protocol that has already been agreed on, for a board cols wide; its traffic is counted
+    // in Metrics when metrics are on
+    static Wire create(String protocol, Socket socket, int cols) throws IOException {
+        InputStream in = Metrics.countReceived(socket.getInputStream());
+        OutputStream out = Metrics.countSent(socket.getOutputStream());
+        return protocol.equals(BINARY) ? new BinaryWire(in, out, cols) : new TextWire(in, out);
+    }
+
+    // Handshake lines are read a byte at a time so nothing after the newline is taken from the wire that follows
+    static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            if (b != '\r') line.append((char) b);
+        }
+        return b == -1 && line.length() == 0 ? null : line.toString();
+    }
+
+    static void writeLine(OutputStream out, String line) throws IOException {
+        out.write((line + "\n").getBytes(java.nio.charset.StandardCharsets.US_ASCII));
+        out.flush();
+    }
+}